@@ -0,0 +1,30 @@
+package Project.Benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner runs the JMH benchmarks with the gc profiler always on, so allocation per
+ * operation is reported next to throughput and average time. Any JMH command line options
+ * are passed through.
+ * @author Diar Shabani
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Runs the benchmarks
+     * @param args JMH command line options
+     * @throws RunnerException If a benchmark fails
+     * @throws CommandLineOptionException If the options cannot be parsed
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,202 @@
+package Project.Benchmark;
+
+import Project.Model.InHouse;
+import Project.Model.Inventory;
+import Project.Model.Outsourced;
+import Project.Model.Part;
+import Project.Model.Product;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InventoryBenchmark measures the inventory operations the forms rely on at catalogue sizes
+ * from a thousand to ten million parts. Each set holds the given number of parts and one product
+ * for every ten parts, each using three parts. Part names are drawn from a small vocabulary, so a
+ * name search returns a realistic share of the catalogue rather than one row or all of them.
+ * <p>
+ * Benchmarks that change the inventory undo their change in the same invocation, so every
+ * measurement sees the same sized inventory.
+ * @author Diar Shabani
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx24g"})
+public class InventoryBenchmark {
+    private static final String[] WORDS = {
+            "Bolt", "Cushion", "Towel", "Mat", "Pillow", "Cover", "Lamp", "Shade", "Hinge", "Bracket",
+            "Screw", "Washer", "Panel", "Frame", "Rail", "Caster", "Knob", "Handle", "Spring", "Glide"
+    };
+    private static final String[] QUERIES = {"pillow", "bolt 12", "ame", "hinge 9", "cast"};
+    private static final int SAMPLES = 1 << 12;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private Inventory inventory;
+    private int[] partIds;
+    private int[] productIds;
+    private int[] partIndexes;
+    private int next;
+    private Product listed;
+    private Part associated;
+
+    /**
+     * Fills the inventory and picks the IDs the benchmarks cycle through
+     */
+    @Setup(Level.Trial)
+    public void fill() {
+        SplittableRandom random = new SplittableRandom(42);
+        inventory = new Inventory();
+        List<Part> parts = new ArrayList<>(rows);
+        for (int id = 1; id <= rows; id++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + id;
+            double price = random.nextInt(1, 10_000) / 100.0;
+            int stock = random.nextInt(1, 100);
+            parts.add(id % 2 == 0
+                    ? new InHouse(id, name, price, stock, 1, 100, random.nextInt(1, 500))
+                    : new Outsourced(id, name, price, stock, 1, 100, "Supplier " + random.nextInt(100)));
+        }
+        inventory.addParts(parts);
+
+        List<Product> products = new ArrayList<>(rows / 10);
+        for (int id = 1; id <= Math.max(1, rows / 10); id++) {
+            Product product = new Product(id, WORDS[random.nextInt(WORDS.length)] + " Set " + id, 99.99, 5, 1, 10);
+            for (int i = 0; i < 3; i++) {
+                product.addAssociatedPart(parts.get(random.nextInt(rows)));
+            }
+            products.add(product);
+        }
+        inventory.addProducts(products);
+
+        partIds = new int[SAMPLES];
+        productIds = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            partIds[i] = random.nextInt(1, rows + 1);
+            productIds[i] = random.nextInt(1, products.size() + 1);
+        }
+        int[] positions = new int[rows + 1];
+        ObservableList<Part> allParts = inventory.getAllParts();
+        for (int i = 0; i < allParts.size(); i++) {
+            positions[allParts.get(i).getId()] = i;
+        }
+        partIndexes = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            partIndexes[i] = positions[partIds[i]];
+        }
+        listed = inventory.lookupProduct(productIds[0]);
+        associated = parts.get(0);
+    }
+
+    private int nextSample() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public Part lookupPartById() {
+        return inventory.lookupPart(partIds[nextSample()]);
+    }
+
+    @Benchmark
+    public ObservableList<Part> lookupPartByName() {
+        return inventory.lookupPart(QUERIES[nextSample() % QUERIES.length]);
+    }
+
+    @Benchmark
+    public Product lookupProductById() {
+        return inventory.lookupProduct(productIds[nextSample()]);
+    }
+
+    @Benchmark
+    public int returnNextPartID() {
+        return inventory.returnNextPartID();
+    }
+
+    /**
+     * Replaces a part the way the Modify Part form does: find its position with indexOf,
+     * then update the part at that index
+     */
+    @Benchmark
+    public Part updatePartViaIndexOf() {
+        Part current = inventory.lookupPart(partIds[nextSample()]);
+        Part replacement = copy(current);
+        inventory.updatePart(inventory.getAllParts().indexOf(current), replacement);
+        return replacement;
+    }
+
+    /**
+     * Replaces a part at a position already known, leaving out the indexOf scan. The positions
+     * are looked up once in setup; replacing a part keeps its position, so they stay correct.
+     */
+    @Benchmark
+    public Part updatePartAtIndex() {
+        int index = partIndexes[nextSample()];
+        Part replacement = copy(inventory.getAllParts().get(index));
+        inventory.updatePart(index, replacement);
+        return replacement;
+    }
+
+    /**
+     * Deletes a part and adds it back, relisting it on the products that used it,
+     * so the inventory keeps its size and its associations
+     */
+    @Benchmark
+    public boolean deletePart() {
+        Part part = inventory.lookupPart(partIds[nextSample()]);
+        List<Product> users = inventory.getProductsUsingPart(part);
+        int[] uses = new int[users.size()];
+        for (int i = 0; i < uses.length; i++) {
+            for (Part listed : users.get(i).getAllAssociatedParts()) {
+                if (listed == part) {
+                    uses[i]++;
+                }
+            }
+        }
+        boolean deleted = inventory.deletePart(part);
+        inventory.addPart(part);
+        for (int i = 0; i < uses.length; i++) {
+            for (int n = 0; n < uses[i]; n++) {
+                users.get(i).addAssociatedPart(part);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Associates a part with a product in the inventory and removes it again, so the where-used
+     * index and the product's material cost are kept up to date as they are for the forms
+     */
+    @Benchmark
+    public boolean addAssociatedPart() {
+        listed.addAssociatedPart(associated);
+        return listed.deleteAssociatedPart(associated);
+    }
+
+    private static Part copy(Part part) {
+        if (part instanceof InHouse) {
+            return new InHouse(part.getId(), part.getName(), part.getPrice(), part.getStock(),
+                    part.getMin(), part.getMax(), ((InHouse) part).getMachineId());
+        }
+        return new Outsourced(part.getId(), part.getName(), part.getPrice(), part.getStock(),
+                part.getMin(), part.getMax(), ((Outsourced) part).getCompanyName());
+    }
+}
@@ -209,6 +209,12 @@ public class AddPartFormController {
             alert.setHeaderText("Invalid input for one or more fields");
             alert.setContentText("Please ensure all fields have valid input.");
             alert.showAndWait();
+        } catch (IllegalStateException e) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Part Not Saved");
+            alert.setHeaderText(e.getMessage());
+            alert.setContentText("Another user added a part with this ID. Please use a different ID.");
+            alert.showAndWait();
         }
 
     }
@@ -1,10 +1,10 @@
 package Project.Controller;
 
 import Project.Model.Inventory;
+import Project.Model.LiveSearchView;
 import Project.Model.Part;
 import Project.Model.Product;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
@@ -15,6 +15,8 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 
+import java.util.List;
+
 /**
  * AddProductFormController is responsible for handling the Add Product Form UI interactions,
  * managing the creation of new products, and adding associated parts to the product.
@@ -23,6 +25,8 @@ import javafx.stage.Stage;
  */
 public class AddProductFormController {
     private Inventory inventory;
+    private LiveSearchView<Part> availablePartsView;
+    private SearchExecutor<LiveSearchView<Part>.Search> partSearch;
 
     @FXML
     private TextField productIdField;
@@ -81,7 +85,7 @@ public class AddProductFormController {
     @FXML
     public void initialize() {
         productIdField.setDisable(true);
-        productIdField.setText(String.valueOf(Product.getNextId()));
+        productIdField.setText(String.valueOf(inventory.returnNextProductID()));
         availablePartIdColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
         availablePartNameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
         availablePartInventoryLevelColumn.setCellValueFactory(new PropertyValueFactory<>("stock"));
@@ -92,7 +96,12 @@ public class AddProductFormController {
         appliedPartInventoryLevelColumn.setCellValueFactory(new PropertyValueFactory<>("stock"));
         appliedPartPriceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
 
-        availablePartsTableView.setItems(inventory.getAllParts());
+        availablePartsView = inventory.createPartView();
+        SortedList<Part> sortedParts = availablePartsView.getSortedItems();
+        sortedParts.comparatorProperty().bind(availablePartsTableView.comparatorProperty());
+        availablePartsTableView.setItems(sortedParts);
+        partSearch = new SearchExecutor<>(this::prepareSearch, availablePartsView::apply);
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> partSearch.submit(newValue));
     }
 
     /**
@@ -110,34 +119,37 @@ public class AddProductFormController {
 
     /**
      * Handles the Search button click event and filters the available parts table based on the search text.
-     * This method retrieves the search text from the search field and performs a search based on the following logic:
-     * 1. If the search text is empty, it populates the available parts table with all the parts from the inventory.
-     * 2. If the search text can be parsed as an integer (part ID), it searches for a part with the given ID and
-     *    updates the available parts table with the found part or with an empty table if no part is found.
-     * 3. If the search text is a non-integer string (part name), it searches for parts with names containing the search text
-     *    and updates the available parts table with the found parts or with an empty table if no parts are found.
+     * The search also runs in the background as the user types; the button runs it without waiting for typing to pause.
      */
     @FXML
     public void handleSearch() {
-        String searchText = searchField.getText();
+        partSearch.submitNow(searchField.getText());
+    }
 
-        if (searchText.isEmpty()) {
-            availablePartsTableView.setItems(inventory.getAllParts());
-        } else {
-            try {
-                int partId = Integer.parseInt(searchText);
-                Part searchedPart = inventory.lookupPart(partId);
+    /**
+     * Cancels any search still running for the available parts table, called when the form closes
+     */
+    public void cancelSearch() {
+        partSearch.cancel();
+    }
 
-                if (searchedPart != null) {
-                    ObservableList<Part> foundPart = FXCollections.observableArrayList();
-                    foundPart.add(searchedPart);
-                    availablePartsTableView.setItems(foundPart);
-                } else {
-                    availablePartsTableView.setItems(null);
-                }
-            } catch (NumberFormatException e) {
-                availablePartsTableView.setItems(inventory.lookupPart(searchText));
-            }
+    /**
+     * Prepares the search for the parts to show, following this logic:
+     * 1. If the search text is empty, the available parts table shows all the parts from the inventory.
+     * 2. If the search text can be parsed as an integer (part ID), it looks up the part with the given ID and
+     *    shows the found part, or nothing if no part is found.
+     * 3. If the search text is a non-integer string (part name), it searches for parts with names containing the search text.
+     * The ID lookup happens here on the JavaFX Application Thread; a name search runs later in the background.
+     * @param searchText The text entered in the search field
+     * @return The search to run
+     */
+    private LiveSearchView<Part>.Search prepareSearch(String searchText) {
+        try {
+            int partId = Integer.parseInt(searchText);
+            Part searchedPart = inventory.lookupPart(partId);
+            return availablePartsView.prepare(searchText, searchedPart != null ? List.of(searchedPart) : List.of());
+        } catch (NumberFormatException e) {
+            return availablePartsView.prepare(searchText);
         }
     }
 
@@ -272,7 +284,16 @@ public class AddProductFormController {
         }
 
         Product product = new Product(id, name, price, stock, min, max);
-        inventory.addProduct(product);
+        try {
+            inventory.addProduct(product);
+        } catch (IllegalStateException e) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Product Not Saved");
+            alert.setHeaderText(e.getMessage());
+            alert.setContentText("Another user added a product with this ID. Please use a different ID.");
+            alert.showAndWait();
+            return;
+        }
         mainFormController.updateTables();
 
         Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
@@ -0,0 +1,87 @@
+package Project.Controller;
+
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.control.ButtonBase;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * FxmlHandlerEvent is a Java Flight Recorder event covering one run of an FXML event handler,
+ * so a stutter in the interface can be traced to the handler that caused it. Handlers are timed
+ * by {@link #instrument(Parent, Object)} right after a view is loaded, so the controllers
+ * themselves are left alone.
+ * @author Diar Shabani
+ */
+@Name("Project.FxmlHandler")
+@Label("FXML Handler")
+@Category({"Inventory", "Controller"})
+@Description("A controller method run in response to the user")
+public class FxmlHandlerEvent extends Event {
+
+    @Label("Controller")
+    private String controller;
+
+    @Label("Handler")
+    @Description("The text of the control whose handler ran")
+    private String handler;
+
+    /**
+     * Wraps the action handler of every button in a loaded view so each run is recorded.
+     * Call it once, right after the loader has wired the handlers.
+     * @param root The root of the loaded view
+     * @param controller The view's controller
+     */
+    static void instrument(Parent root, Object controller) {
+        for (Node node : root.getChildrenUnmodifiable()) {
+            if (node instanceof ButtonBase) {
+                ButtonBase button = (ButtonBase) node;
+                EventHandler<ActionEvent> handler = button.getOnAction();
+                if (handler != null) {
+                    String name = button.getText();
+                    button.setOnAction(event -> {
+                        FxmlHandlerEvent trace = start(controller.getClass(), name);
+                        try {
+                            handler.handle(event);
+                        } finally {
+                            trace.finish();
+                        }
+                    });
+                }
+            } else if (node instanceof Parent) {
+                instrument((Parent) node, controller);
+            }
+        }
+    }
+
+    /**
+     * Starts timing a handler
+     * @param controller The controller class
+     * @param handler Names the handler
+     * @return The started event; call {@link #finish()} once the handler returns
+     */
+    static FxmlHandlerEvent start(Class<?> controller, String handler) {
+        FxmlHandlerEvent event = new FxmlHandlerEvent();
+        event.begin();
+        if (event.isEnabled()) {
+            event.controller = controller.getSimpleName();
+            event.handler = handler;
+        }
+        return event;
+    }
+
+    /**
+     * Records the event if recording is on and it passes the configured threshold
+     */
+    void finish() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package Project.Controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * FxmlLoadEvent is a Java Flight Recorder event covering the loading of one FXML view
+ * @author Diar Shabani
+ */
+@Name("Project.FxmlLoad")
+@Label("FXML Load")
+@Category({"Inventory", "Controller"})
+@Description("Parsing an FXML file and building its scene graph and controller")
+public class FxmlLoadEvent extends Event {
+
+    @Label("View")
+    private String view;
+
+    /**
+     * Starts timing an FXML load
+     * @param view The FXML file
+     * @return The started event; call {@link #finish()} once the view is loaded
+     */
+    static FxmlLoadEvent start(String view) {
+        FxmlLoadEvent event = new FxmlLoadEvent();
+        event.begin();
+        if (event.isEnabled()) {
+            event.view = view;
+        }
+        return event;
+    }
+
+    /**
+     * Records the event if recording is on and it passes the configured threshold
+     */
+    void finish() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package Project.Controller;
+
+import Project.Model.ConcurrentInventory;
+import Project.Model.InHouse;
+import Project.Model.Inventory;
+import Project.Model.InventoryImporter;
+import Project.Model.Outsourced;
+import Project.Model.Part;
+import Project.Model.Product;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InventoryServer serves the inventory over HTTP using the JDK's built-in server, for other systems
+ * in the shop to read and update, either on its own through {@link #main(String[])} or alongside the
+ * windows when {@link MainGUI} is started with the inventory.port system property. Records are JSON
+ * objects in the same form as a JSON Lines import:
+ * <ul>
+ *     <li>GET /parts/{id} and GET /products/{id} return one record</li>
+ *     <li>GET /parts?q=text and GET /products?q=text search by name or ID, up to limit results (default 100)</li>
+ *     <li>POST /parts and POST /products add a record; PUT /parts/{id} and PUT /products/{id} replace one</li>
+ *     <li>DELETE /parts/{id} and DELETE /products/{id} remove one</li>
+ *     <li>POST /parts/{id}/stock?delta=n and POST /products/{id}/stock?delta=n adjust the stock within min and max</li>
+ * </ul>
+ * Requests are handled on a virtual thread each when the JDK provides them, and on a cached pool
+ * of daemon threads otherwise. Lookups, writes and stock changes go straight to a
+ * {@link ConcurrentInventory}. Name searches run on the request thread against the index
+ * of the wrapped inventory, which can be searched while the apply thread changes it, and stop
+ * once limit results are found.
+ * @author Diar Shabani
+ */
+public class InventoryServer {
+    private static final Logger LOG = System.getLogger(InventoryServer.class.getName());
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_LIMIT = 100;
+
+    private final ConcurrentInventory inventory;
+    private final ExecutorService applyExecutor;
+    private final ExecutorService requestExecutor;
+    private final HttpServer server;
+
+    /**
+     * Creates a server for an inventory, applying changes to it on a thread of the server's own.
+     * The inventory must not be used by any other thread afterwards.
+     * @param inventory The inventory to serve
+     * @param port The port to listen on, or 0 for any free port
+     * @throws IOException If the port cannot be bound
+     */
+    public InventoryServer(Inventory inventory, int port) throws IOException {
+        this(Executors.newSingleThreadExecutor(task -> daemon(task, "inventory-apply")), inventory, port);
+    }
+
+    private InventoryServer(ExecutorService applyExecutor, Inventory inventory, int port) throws IOException {
+        this(CompletableFuture.supplyAsync(() -> {
+            inventory.enableMetrics("InventoryServer:" + port);
+            return new ConcurrentInventory(inventory, applyExecutor);
+        }, applyExecutor).join(), applyExecutor, port);
+    }
+
+    /**
+     * Creates a server for an inventory that is already shared, such as the one the tables of a
+     * running application show. Changes reach the tables through the inventory's own apply thread,
+     * and edits made in the forms are checked against changes made through the server.
+     * @param inventory The inventory to serve
+     * @param port The port to listen on, or 0 for any free port
+     * @throws IOException If the port cannot be bound
+     */
+    public InventoryServer(ConcurrentInventory inventory, int port) throws IOException {
+        this(inventory, null, port);
+    }
+
+    private InventoryServer(ConcurrentInventory inventory, ExecutorService applyExecutor, int port) throws IOException {
+        this.inventory = inventory;
+        this.applyExecutor = applyExecutor;
+        requestExecutor = newRequestExecutor();
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/parts", this::handleParts);
+        server.createContext("/products", this::handleProducts);
+        server.setExecutor(requestExecutor);
+    }
+
+    /**
+     * Starts serving requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops serving requests, waiting up to a second for requests in progress
+     */
+    public void stop() {
+        server.stop(1);
+        requestExecutor.shutdown();
+        if (applyExecutor != null) {
+            applyExecutor.shutdown();
+        }
+    }
+
+    /**
+     * @return The port the server is listening on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Starts a server with the sample data. The port is taken from the first argument,
+     * then the inventory.port system property, then 8080.
+     * @param args The port, optionally
+     * @throws IOException If the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("inventory.port", DEFAULT_PORT);
+        InventoryServer server = new InventoryServer(MainGUI.getHomeGoodsInventory(), port);
+        server.start();
+        LOG.log(Level.INFO, "Inventory server listening on port {0}", String.valueOf(server.getPort()));
+    }
+
+    private void handleParts(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = path(exchange, "/parts");
+            String method = exchange.getRequestMethod();
+            if (path.length == 0) {
+                if (method.equals("GET")) {
+                    String query = param(exchange, "q");
+                    int limit = limit(exchange);
+                    Collection<Part> parts = query == null ? inventory.getParts() : inventory.searchParts(query, limit);
+                    StringBuilder json = new StringBuilder("[");
+                    Iterator<Part> it = parts.iterator();
+                    for (int i = 0; i < limit && it.hasNext(); i++) {
+                        appendPart(json.append(i > 0 ? "," : ""), it.next());
+                    }
+                    send(exchange, 200, json.append(']').toString());
+                } else if (method.equals("POST")) {
+                    Part part = InventoryImporter.parsePart(body(exchange));
+                    if (inventory.putPartIfAbsent(part)) {
+                        send(exchange, 201, appendPart(new StringBuilder(), part).toString());
+                    } else {
+                        send(exchange, 409, error("Part ID " + part.getId() + " is already in use"));
+                    }
+                } else {
+                    send(exchange, 405, error("Method not allowed"));
+                }
+                return;
+            }
+
+            int id = number("part ID", path[0]);
+            Part part = inventory.lookupPart(id);
+            if (part == null) {
+                send(exchange, 404, error("No part with ID " + id));
+            } else if (path.length == 2 && path[1].equals("stock") && method.equals("POST")) {
+                int delta = number("delta", param(exchange, "delta"));
+                if (part.adjustStock(delta)) {
+                    send(exchange, 200, appendPart(new StringBuilder(), part).toString());
+                } else {
+                    send(exchange, 409, error("Stock would leave the range " + part.getMin() + " to " + part.getMax()));
+                }
+            } else if (path.length != 1) {
+                send(exchange, 404, error("Not found"));
+            } else if (method.equals("GET")) {
+                send(exchange, 200, appendPart(new StringBuilder(), part).toString());
+            } else if (method.equals("PUT")) {
+                Part updated = InventoryImporter.parsePart(body(exchange));
+                if (updated.getId() != id) {
+                    send(exchange, 400, error("The part ID cannot be changed"));
+                } else {
+                    inventory.putPart(updated);
+                    send(exchange, 200, appendPart(new StringBuilder(), updated).toString());
+                }
+            } else if (method.equals("DELETE")) {
+                inventory.deletePart(id);
+                send(exchange, 204, null);
+            } else {
+                send(exchange, 405, error("Method not allowed"));
+            }
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleProducts(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = path(exchange, "/products");
+            String method = exchange.getRequestMethod();
+            if (path.length == 0) {
+                if (method.equals("GET")) {
+                    String query = param(exchange, "q");
+                    int limit = limit(exchange);
+                    Collection<Product> products = query == null ? inventory.getProducts() : inventory.searchProducts(query, limit);
+                    StringBuilder json = new StringBuilder("[");
+                    Iterator<Product> it = products.iterator();
+                    for (int i = 0; i < limit && it.hasNext(); i++) {
+                        appendProduct(json.append(i > 0 ? "," : ""), it.next());
+                    }
+                    send(exchange, 200, json.append(']').toString());
+                } else if (method.equals("POST")) {
+                    Product product = InventoryImporter.parseProduct(body(exchange), inventory::lookupPart);
+                    if (inventory.putProductIfAbsent(product)) {
+                        send(exchange, 201, appendProduct(new StringBuilder(), product).toString());
+                    } else {
+                        send(exchange, 409, error("Product ID " + product.getId() + " is already in use"));
+                    }
+                } else {
+                    send(exchange, 405, error("Method not allowed"));
+                }
+                return;
+            }
+
+            int id = number("product ID", path[0]);
+            Product product = inventory.lookupProduct(id);
+            if (product == null) {
+                send(exchange, 404, error("No product with ID " + id));
+            } else if (path.length == 2 && path[1].equals("stock") && method.equals("POST")) {
+                int delta = number("delta", param(exchange, "delta"));
+                if (product.adjustStock(delta)) {
+                    send(exchange, 200, appendProduct(new StringBuilder(), product).toString());
+                } else {
+                    send(exchange, 409, error("Stock would leave the range " + product.getMin() + " to " + product.getMax()));
+                }
+            } else if (path.length != 1) {
+                send(exchange, 404, error("Not found"));
+            } else if (method.equals("GET")) {
+                send(exchange, 200, appendProduct(new StringBuilder(), product).toString());
+            } else if (method.equals("PUT")) {
+                Product updated = InventoryImporter.parseProduct(body(exchange), inventory::lookupPart);
+                if (updated.getId() != id) {
+                    send(exchange, 400, error("The product ID cannot be changed"));
+                } else {
+                    inventory.putProduct(updated);
+                    send(exchange, 200, appendProduct(new StringBuilder(), updated).toString());
+                }
+            } else if (method.equals("DELETE")) {
+                inventory.deleteProduct(id);
+                send(exchange, 204, null);
+            } else {
+                send(exchange, 405, error("Method not allowed"));
+            }
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Splits the part of the request path after a context into segments
+     */
+    private static String[] path(HttpExchange exchange, String context) {
+        String rest = exchange.getRequestURI().getPath().substring(context.length());
+        while (rest.startsWith("/")) {
+            rest = rest.substring(1);
+        }
+        return rest.isEmpty() ? new String[0] : rest.split("/");
+    }
+
+    private static String param(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            if (key.equals(name)) {
+                return equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static int limit(HttpExchange exchange) {
+        String limit = param(exchange, "limit");
+        return limit == null ? DEFAULT_LIMIT : Math.max(0, number("limit", limit));
+    }
+
+    /**
+     * Parses a whole number from the request path or query, so a bad value is answered with
+     * 400 and a message naming it rather than with NumberFormatException's
+     */
+    private static int number(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("The " + name + " is missing");
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The " + name + " must be a whole number, not \"" + value + "\"");
+        }
+    }
+
+    private static String body(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String error(String message) {
+        return appendString(new StringBuilder("{\"error\":"), message).append('}').toString();
+    }
+
+    private static StringBuilder appendPart(StringBuilder json, Part part) {
+        json.append("{\"type\":\"").append(part instanceof InHouse ? "InHouse" : "Outsourced").append('"');
+        appendFields(json, part.getId(), part.getName(), part.getPrice(), part.getStock(), part.getMin(), part.getMax());
+        if (part instanceof InHouse) {
+            json.append(",\"machineId\":").append(((InHouse) part).getMachineId());
+        } else if (part instanceof Outsourced) {
+            appendString(json.append(",\"companyName\":"), ((Outsourced) part).getCompanyName());
+        }
+        return json.append('}');
+    }
+
+    private static StringBuilder appendProduct(StringBuilder json, Product product) {
+        json.append("{\"type\":\"Product\"");
+        appendFields(json, product.getId(), product.getName(), product.getPrice(), product.getStock(), product.getMin(), product.getMax());
+        json.append(",\"parts\":[");
+        List<Part> parts = product.getAssociatedPartsSnapshot();
+        for (int i = 0; i < parts.size(); i++) {
+            json.append(i > 0 ? "," : "").append(parts.get(i).getId());
+        }
+        return json.append("]}");
+    }
+
+    private static void appendFields(StringBuilder json, int id, String name, double price, int stock, int min, int max) {
+        json.append(",\"id\":").append(id);
+        appendString(json.append(",\"name\":"), name);
+        json.append(",\"price\":").append(price)
+                .append(",\"stock\":").append(stock)
+                .append(",\"min\":").append(min)
+                .append(",\"max\":").append(max);
+    }
+
+    private static StringBuilder appendString(StringBuilder json, String value) {
+        if (value == null) {
+            return json.append("null");
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+
+    /**
+     * Uses a virtual thread per request when the running JDK has them, looked up reflectively so the
+     * server still builds and runs on older JDKs, where a cached pool of daemon threads is used instead
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> daemon(task, "inventory-http-" + count.incrementAndGet()));
+        }
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
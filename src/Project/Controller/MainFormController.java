@@ -1,9 +1,10 @@
 package Project.Controller;
 
 import Project.Model.Inventory;
+import Project.Model.LiveSearchView;
 import Project.Model.Part;
 import Project.Model.Product;
-import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -14,6 +15,7 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -24,6 +26,10 @@ import java.util.Optional;
 public class MainFormController {
 
     private Inventory inventory;
+    private LiveSearchView<Part> partView;
+    private LiveSearchView<Product> productView;
+    private SearchExecutor<LiveSearchView<Part>.Search> partSearch;
+    private SearchExecutor<LiveSearchView<Product>.Search> productSearch;
     @FXML
     private TextField searchPartField;
     @FXML
@@ -94,8 +100,19 @@ public class MainFormController {
         productInventoryLevelColumn.setCellValueFactory(new PropertyValueFactory<>("stock"));
         productPriceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
 
-        partsTableView.setItems(inventory.getAllParts());
-        productsTableView.setItems(inventory.getAllProducts());
+        partView = inventory.createPartView();
+        productView = inventory.createProductView();
+        SortedList<Part> sortedParts = partView.getSortedItems();
+        sortedParts.comparatorProperty().bind(partsTableView.comparatorProperty());
+        partsTableView.setItems(sortedParts);
+        SortedList<Product> sortedProducts = productView.getSortedItems();
+        sortedProducts.comparatorProperty().bind(productsTableView.comparatorProperty());
+        productsTableView.setItems(sortedProducts);
+
+        partSearch = new SearchExecutor<>(partView::prepare, partView::apply);
+        productSearch = new SearchExecutor<>(productView::prepare, productView::apply);
+        searchPartField.textProperty().addListener((observable, oldValue, newValue) -> partSearch.submit(newValue));
+        searchProductField.textProperty().addListener((observable, oldValue, newValue) -> productSearch.submit(newValue));
     }
 
     /**
@@ -107,7 +124,10 @@ public class MainFormController {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/Project/View/AddPartForm.fxml"));
             loader.setControllerFactory(c -> new AddPartFormController(inventory,this));
+            FxmlLoadEvent load = FxmlLoadEvent.start("AddPartForm.fxml");
             Parent root = loader.load();
+            load.finish();
+            FxmlHandlerEvent.instrument(root, loader.getController());
             Scene scene = new Scene(root);
             Stage stage = new Stage();
             stage.setTitle("Add Part");
@@ -129,7 +149,10 @@ public class MainFormController {
             try {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/Project/View/ModifyPartForm.fxml"));
                 loader.setControllerFactory(c -> new ModifyPartFormController(inventory, selectedPart, this));
+                FxmlLoadEvent load = FxmlLoadEvent.start("ModifyPartForm.fxml");
                 Parent root = loader.load();
+                load.finish();
+                FxmlHandlerEvent.instrument(root, loader.getController());
                 Scene scene = new Scene(root);
                 Stage stage = new Stage();
                 stage.setTitle("Modify Part");
@@ -152,7 +175,12 @@ public class MainFormController {
             Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
             alert.setTitle("Delete Part");
             alert.setHeaderText("Are you sure you want to delete this part?");
-            alert.setContentText("This action cannot be undone.");
+            int uses = inventory.getProductsUsingPart(selectedPart).size();
+            if (uses > 0) {
+                alert.setContentText("This part is used by " + uses + " product(s) and will be removed from them. This action cannot be undone.");
+            } else {
+                alert.setContentText("This action cannot be undone.");
+            }
 
             Optional<ButtonType> result = alert.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
@@ -163,12 +191,12 @@ public class MainFormController {
 
     /**
      * Handles the search functionality for parts and filters the parts table view.
+     * The search runs in the background as the user types; the button runs it without waiting
+     * for typing to pause. The table keeps showing the same live view, so selection survives a search.
      */
     @FXML
     private void handleSearchPart() {
-        String searchText = searchPartField.getText();
-        ObservableList<Part> filteredList = inventory.lookupPart(searchText);
-        partsTableView.setItems(filteredList);
+        partSearch.submitNow(searchPartField.getText());
     }
 
     /**
@@ -180,11 +208,16 @@ public class MainFormController {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/Project/View/AddProductForm.fxml"));
             loader.setControllerFactory(c -> new AddProductFormController(inventory, this));
+            FxmlLoadEvent load = FxmlLoadEvent.start("AddProductForm.fxml");
             Parent root = loader.load();
+            load.finish();
+            FxmlHandlerEvent.instrument(root, loader.getController());
             Scene scene = new Scene(root);
             Stage stage = new Stage();
             stage.setTitle("Add Product");
             stage.setScene(scene);
+            AddProductFormController controller = loader.getController();
+            stage.setOnHidden(e -> controller.cancelSearch());
             stage.show();
         } catch (IOException e) {
             e.printStackTrace();
@@ -202,11 +235,16 @@ public class MainFormController {
             try {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/Project/View/ModifyProductForm.fxml"));
                 loader.setControllerFactory(c -> new ModifyProductFormController(inventory, selectedProduct,this));
+                FxmlLoadEvent load = FxmlLoadEvent.start("ModifyProductForm.fxml");
                 Parent root = loader.load();
+                load.finish();
+                FxmlHandlerEvent.instrument(root, loader.getController());
                 Scene scene = new Scene(root);
                 Stage stage = new Stage();
                 stage.setTitle("Modify Product");
                 stage.setScene(scene);
+                ModifyProductFormController controller = loader.getController();
+                stage.setOnHidden(e -> controller.cancelSearch());
                 stage.show();
             } catch (IOException e) {
                 e.printStackTrace();
@@ -223,18 +261,17 @@ public class MainFormController {
         Product selectedProduct = productsTableView.getSelectionModel().getSelectedItem();
         if (selectedProduct != null) {
             inventory.deleteProduct(selectedProduct);
-            productsTableView.setItems(inventory.getAllProducts());
         }
     }
 
     /**
      * Handles the search functionality for products and filters the products table view.
+     * The search runs in the background as the user types; the button runs it without waiting
+     * for typing to pause. The table keeps showing the same live view, so selection survives a search.
      */
     @FXML
     private void handleSearchProduct() {
-        String searchText = searchProductField.getText();
-        ObservableList<Product> filteredList = inventory.lookupProduct(searchText);
-        productsTableView.setItems(filteredList);
+        productSearch.submitNow(searchProductField.getText());
     }
 
     /**
@@ -253,9 +290,11 @@ public class MainFormController {
 
     /**
      * Updates the parts and products table views with the current inventory data.
+     * Additions and removals already reach the tables through their live views,
+     * so this only redraws cells for items edited in place.
      */
     public void updateTables() {
-        partsTableView.setItems(inventory.getAllParts());
-        productsTableView.setItems(inventory.getAllProducts());
+        partsTableView.refresh();
+        productsTableView.refresh();
     }
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package Project.Controller;
 
+import Project.Model.ConcurrentInventory;
 import Project.Model.InHouse;
 import Project.Model.Inventory;
+import Project.Model.InventoryGenerator;
+import Project.Model.InventoryLog;
+import Project.Model.InventorySnapshot;
 import Project.Model.Outsourced;
 import Project.Model.Product;
 import javafx.application.Application;
@@ -10,22 +14,42 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * MainGUI launches the Inventory Management application.
  * @author Diar Shabani
  */
 public class MainGUI extends Application {
+    private Inventory inventory;
+    private InventoryLog log;
+    private InventoryServer server;
 
     /**
      * Starts the Inventory Management application for Software 1 C482
-     * Initializes the FXMLLoader, sets the controller factory, and sets the scene
+     * Initializes the FXMLLoader, sets the controller factory, and sets the scene.
+     * When the inventory.port system property is set, the inventory is also served over HTTP on
+     * that port by an {@link InventoryServer}, whose changes appear in the tables as they are made.
      * @param primaryStage The primary stage
      */
     @Override
     public void start(Stage primaryStage) throws Exception {
+        inventory = loadInventory();
+        Integer port = Integer.getInteger("inventory.port");
+        if (port != null) {
+            server = new InventoryServer(new ConcurrentInventory(inventory), port);
+            server.start();
+        }
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/Project/View/Landing.fxml"));
-        loader.setControllerFactory(c -> new MainFormController(getHomeGoodsInventory()));
+        loader.setControllerFactory(c -> new MainFormController(inventory));
+        FxmlLoadEvent load = FxmlLoadEvent.start("Landing.fxml");
         Parent root = loader.load();
+        load.finish();
+        FxmlHandlerEvent.instrument(root, loader.getController());
 
         MainFormController controller = loader.getController();
 
@@ -34,6 +58,78 @@ public class MainGUI extends Application {
         primaryStage.show();
     }
 
+    /**
+     * Stops any server, then saves the inventory when the application exits. When the inventory.snapshot system property
+     * names a file a fresh snapshot is written there and the log, now fully contained in it, is emptied.
+     * The log is then flushed and closed.
+     */
+    @Override
+    public void stop() throws Exception {
+        if (server != null) {
+            server.stop();
+        }
+        String snapshotFile = System.getProperty("inventory.snapshot");
+        if (snapshotFile != null && inventory != null) {
+            long checkpoint = ThreadLocalRandom.current().nextLong() | 1;
+            InventorySnapshot.write(inventory, Paths.get(snapshotFile), checkpoint);
+            if (log != null) {
+                log.checkpoint(checkpoint);
+            }
+        }
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    /**
+     * Loads the inventory to start with. When the inventory.snapshot system property names an
+     * existing file the inventory is restored from that snapshot, which decodes every row before the
+     * window opens, though on several threads and without parsing text. When the inventory.log system
+     * property names a file, the changes recorded there since the snapshot are replayed and every
+     * later change is appended to it. If neither holds any data, the inventory.generate system
+     * property can ask for a generated data set, given as a part count optionally followed by a comma
+     * and a product count, seeded by the inventory.seed system property. Otherwise the sample data is used.
+     * @return The inventory to show
+     * @throws IOException If the snapshot or log cannot be read
+     */
+    private Inventory loadInventory() throws IOException {
+        Inventory inventory = new Inventory();
+        inventory.enableMetrics("MainGUI");
+        boolean restored = false;
+        long checkpoint = 0;
+
+        String snapshotFile = System.getProperty("inventory.snapshot");
+        if (snapshotFile != null) {
+            Path snapshotPath = Paths.get(snapshotFile);
+            if (Files.exists(snapshotPath)) {
+                InventorySnapshot snapshot = InventorySnapshot.open(snapshotPath);
+                snapshot.restore(inventory);
+                checkpoint = snapshot.getCheckpoint();
+                restored = true;
+            }
+        }
+
+        String logFile = System.getProperty("inventory.log");
+        if (logFile != null) {
+            log = InventoryLog.open(Paths.get(logFile));
+            restored |= log.replay(inventory, checkpoint) > 0;
+            inventory.setLog(log);
+        }
+
+        String generate = System.getProperty("inventory.generate");
+        if (!restored && generate != null) {
+            String[] counts = generate.split(",");
+            int parts = Integer.parseInt(counts[0].trim());
+            InventoryGenerator generator = new InventoryGenerator(Long.getLong("inventory.seed", 1));
+            generator.setPartCount(parts);
+            generator.setProductCount(counts.length > 1 ? Integer.parseInt(counts[1].trim()) : parts / 10);
+            generator.generate(inventory);
+        } else if (!restored) {
+            addHomeGoods(inventory);
+        }
+        return inventory;
+    }
+
     /**
      * The main method launches the application.
      * @param args, launches application with arguments
@@ -48,7 +144,15 @@ public class MainGUI extends Application {
      */
     public static Inventory getHomeGoodsInventory() {
         Inventory inventory = new Inventory();
+        addHomeGoods(inventory);
+        return inventory;
+    }
 
+    /**
+     * Adds the sample home goods parts and products to an inventory
+     * @param inventory The inventory to fill
+     */
+    public static void addHomeGoods(Inventory inventory) {
         inventory.addPart(new InHouse(1, "Sofa Cushion", 19.99, 10, 1, 100, 101));
         inventory.addPart(new InHouse(2, "Bath Towel", 9.99, 25, 1, 100, 102));
         inventory.addPart(new Outsourced(3, "Kitchen Mat", 14.99, 15, 1, 100, "HomeGoods Inc."));
@@ -67,7 +171,5 @@ public class MainGUI extends Application {
         product3.addAssociatedPart(inventory.lookupPart(3));
         product3.addAssociatedPart(inventory.lookupPart(4));
         inventory.addProduct(product3);
-
-        return inventory;
     }
 }
\ No newline at end of file
@@ -94,10 +94,10 @@ public class ModifyPartFormController {
 
     /**
      * Handles the save action on the Modify Part Form.
-     * Retrieves the updated part information from the form fields,
-     * creates a new Part instance (InHouse or Outsourced) with the updated data,
-     * updates the part in the inventory, refreshes the main form's tables,
-     * and closes the Modify Part Form.
+     * Retrieves the updated part information from the form fields and validates it.
+     * The part is edited in place when its type is unchanged; switching between InHouse
+     * and Outsourced swaps in a new part, which products using the old one are pointed at.
+     * Then refreshes the main form's tables and closes the Modify Part Form.
      */
     @FXML
     public void handleSave() {
@@ -244,8 +244,31 @@ public class ModifyPartFormController {
             return;
         }
 
-        int index = inventory.getAllParts().indexOf(part);
-        inventory.updatePart(index, updatedPart);
+        boolean saved;
+        if (updatedPart.getClass() == part.getClass()) {
+            saved = inventory.editPart(part.getId(), edited -> {
+                edited.setName(updatedPart.getName());
+                edited.setPrice(updatedPart.getPrice());
+                edited.setStock(updatedPart.getStock());
+                edited.setMin(updatedPart.getMin());
+                edited.setMax(updatedPart.getMax());
+                if (edited instanceof InHouse) {
+                    ((InHouse) edited).setMachineId(((InHouse) updatedPart).getMachineId());
+                } else {
+                    ((Outsourced) edited).setCompanyName(((Outsourced) updatedPart).getCompanyName());
+                }
+            }) != null;
+        } else {
+            saved = inventory.replacePart(part, updatedPart);
+        }
+        if (!saved) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Part Not Saved");
+            alert.setHeaderText("This part was changed or deleted by another user");
+            alert.setContentText("Please close the form and open the part again.");
+            alert.showAndWait();
+            return;
+        }
         mainFormController.updateTables();
         closeWindow();
 
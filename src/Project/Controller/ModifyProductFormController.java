@@ -1,6 +1,7 @@
 package Project.Controller;
 
 import Project.Model.Inventory;
+import Project.Model.LiveSearchView;
 import Project.Model.Part;
 import Project.Model.Product;
 import javafx.collections.FXCollections;
@@ -41,6 +42,8 @@ public class ModifyProductFormController {
     @FXML
     private TableView<Part> associatedPartsTable;
     private MainFormController mainFormController;
+    private LiveSearchView<Part> partsView;
+    private SearchExecutor<LiveSearchView<Part>.Search> partSearch;
 
     /**
      * Constructor for the ModifyProductFormController class.
@@ -95,15 +98,34 @@ public class ModifyProductFormController {
         }
 
         associatedPartsTable.setItems(product.getAllAssociatedParts());
+
+        partsView = inventory.createPartView();
+        partSearch = new SearchExecutor<>(partsView::prepare, this::showSearch);
+        partSearchField.textProperty().addListener((observable, oldValue, newValue) -> partSearch.submit(newValue));
     }
     /**
-     * Handles the search action on the Modify Product Form
+     * Cancels any search still running for the parts table, called when the form closes
+     */
+    public void cancelSearch() {
+        partSearch.cancel();
+    }
+
+    /**
+     * Shows the parts found by a search in the parts table. The table gets its own copy,
+     * since adding and removing associated parts moves parts in and out of it.
+     */
+    private void showSearch(LiveSearchView<Part>.Search search) {
+        partsView.apply(search);
+        partsTable.setItems(FXCollections.observableArrayList(partsView.getItems()));
+    }
+
+    /**
+     * Handles the search action on the Modify Product Form.
+     * The search also runs in the background as the user types; the button runs it without waiting for typing to pause.
      */
     @FXML
     public void handleSearch() {
-        String searchTerm = partSearchField.getText();
-        ObservableList<Part> searchResults = inventory.lookupPart(searchTerm);
-        partsTable.setItems(searchResults);
+        partSearch.submitNow(partSearchField.getText());
     }
 
     /**
@@ -134,27 +156,21 @@ public class ModifyProductFormController {
 
     /**
      * Handles the save action on the Modify Product Form.
-     * Retrieves the updated product information from the form fields,
-     * creates a new Product instance with the updated data, updates the product
-     * in the inventory, refreshes the main form's tables, and closes the Modify Product Form
-     * Future improvement, attempt to modify the product object instead of creating a new instance every time i save.
+     * Retrieves the updated product information from the form fields and edits the product
+     * in place, keeping the associated parts it already lists, then refreshes the main form's
+     * tables and closes the Modify Product Form
      */
     @FXML
     public void handleSave() {
         int id = Integer.parseInt(productIdField.getText());
-        for(Product knownProducts : inventory.getAllProducts())
-        {
-            if (!knownProducts.equals(product))
-            {
-                if(knownProducts.getId()==id){
-                    Alert alert = new Alert(Alert.AlertType.ERROR);
-                    alert.setTitle("Invalid Input on modify id field");
-                    alert.setHeaderText("Id cannot be an another products existing id");
-                    alert.setContentText("Please correct the id of the Product.");
-                    alert.showAndWait();
-                    return;
-                }
-            }
+        Product holder = inventory.lookupProduct(id);
+        if (holder != null && holder != product) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Invalid Input on modify id field");
+            alert.setHeaderText("Id cannot be an another products existing id");
+            alert.setContentText("Please correct the id of the Product.");
+            alert.showAndWait();
+            return;
         }
         if (productNameField.getText().isEmpty()||productStockField.getText().isEmpty()||productMinField.getText().isEmpty()||productMaxField.getText().isEmpty()){
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -277,12 +293,22 @@ public class ModifyProductFormController {
         }
 
 
-        System.out.println(product.getAllAssociatedParts().toString());
-        Product updatedProduct = new Product(id, name, price, stock, min, max);
-        updatedProduct.setId(id);
-        updatedProduct.addAssociatedParts(product.getAllAssociatedParts());
-        int productIndex = inventory.getAllProducts().indexOf(product);
-        inventory.updateProduct(productIndex, updatedProduct);
+        Product saved = inventory.editProduct(product.getId(), edited -> {
+            edited.setId(id);
+            edited.setName(name);
+            edited.setPrice(price);
+            edited.setStock(stock);
+            edited.setMin(min);
+            edited.setMax(max);
+        });
+        if (saved == null) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Product Not Saved");
+            alert.setHeaderText("This product was changed or deleted by another user");
+            alert.setContentText("Please close the form and open the product again.");
+            alert.showAndWait();
+            return;
+        }
         mainFormController.updateTables();
         closeWindow();
     }
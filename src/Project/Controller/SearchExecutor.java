@@ -0,0 +1,122 @@
+package Project.Controller;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * SearchExecutor runs the searches behind the search fields on background threads.
+ * Keystrokes are debounced, a new search cancels the one it supersedes, and only the
+ * latest search is published back on the JavaFX Application Thread. Each search is prepared
+ * on the JavaFX Application Thread, so it can take what it needs from the inventory there,
+ * and then runs without touching anything the JavaFX Application Thread changes; the search
+ * itself makes up for changes to the inventory while it ran, so it never has to be repeated.
+ * Searches run on virtual threads when the JDK provides them and on a pool of daemon threads otherwise.
+ * @param <J> The type of search job, for example a {@link Project.Model.LiveSearchView.Search}
+ * @author Diar Shabani
+ */
+public class SearchExecutor<J extends Runnable> {
+    /**
+     * How long typing has to pause before a search starts
+     */
+    public static final long DEBOUNCE_MILLIS = 150;
+
+    private static final Logger LOG = System.getLogger(SearchExecutor.class.getName());
+    private static final ExecutorService SEARCH_THREADS = newSearchThreads();
+
+    private final Function<String, J> prepare;
+    private final Consumer<? super J> publish;
+    private final PauseTransition debounce = new PauseTransition(Duration.millis(DEBOUNCE_MILLIS));
+    private String typed;
+    private Future<?> running;
+    private long generation;
+
+    /**
+     * Constructs an executor for one search field. Must be called on the JavaFX Application Thread.
+     * @param prepare Creates the search for a search text, called on the JavaFX Application Thread
+     * @param publish Shows a search once it has run, called on the JavaFX Application Thread
+     */
+    public SearchExecutor(Function<String, J> prepare, Consumer<? super J> publish) {
+        this.prepare = prepare;
+        this.publish = publish;
+        debounce.setOnFinished(event -> start(typed));
+    }
+
+    /**
+     * Schedules a search once typing pauses. Must be called on the JavaFX Application Thread.
+     * @param text The search text
+     */
+    public void submit(String text) {
+        cancel();
+        typed = text;
+        debounce.playFromStart();
+    }
+
+    /**
+     * Starts a search immediately, for example when the Search button is pressed.
+     * Must be called on the JavaFX Application Thread.
+     * @param text The search text
+     */
+    public void submitNow(String text) {
+        cancel();
+        start(text);
+    }
+
+    /**
+     * Cancels any pending or running search so it is never published, for example when the
+     * window showing the results closes. Must be called on the JavaFX Application Thread.
+     */
+    public void cancel() {
+        generation++;
+        debounce.stop();
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+    }
+
+    /**
+     * Prepares a search, runs it in the background and hands it back to the JavaFX Application
+     * Thread, where it is dropped if a newer search was started in the meantime
+     */
+    private void start(String text) {
+        long ticket = ++generation;
+        J job = prepare.apply(text);
+        running = SEARCH_THREADS.submit(() -> {
+            try {
+                job.run();
+            } catch (RuntimeException e) {
+                LOG.log(Level.ERROR, "Search for \"" + text + "\" failed", e);
+                return;
+            }
+            Platform.runLater(() -> {
+                if (ticket == generation) {
+                    running = null;
+                    publish.accept(job);
+                }
+            });
+        });
+    }
+
+    private static ExecutorService newSearchThreads() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "inventory-search-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
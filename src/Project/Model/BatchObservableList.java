@@ -0,0 +1,231 @@
+package Project.Model;
+
+import javafx.collections.ModifiableObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * BatchObservableList is an ObservableList backed by an ArrayList whose modifications can be
+ * grouped: everything done between {@link #beginBatch()} and {@link #endBatch()} reaches
+ * listeners as a single change, so a table lays itself out once per batch instead of once per row.
+ * Bulk adds and removes are also applied in one pass over the backing array rather than
+ * shifting it once per element.
+ * <p>
+ * The list also remembers where each element was stored, so {@link #positionOf(Object)} finds an
+ * element near that position instead of scanning from the start. An element is assumed to be
+ * held at most once.
+ * @param <E> The type of element
+ * @author Diar Shabani
+ */
+class BatchObservableList<E> extends ModifiableObservableListBase<E> {
+    private final ArrayList<E> elements = new ArrayList<>();
+    private final Map<E, Integer> positions = new IdentityHashMap<>();
+
+    /**
+     * Starts holding back change notifications. Batches nest; listeners are told about
+     * everything at once when the outermost batch ends.
+     */
+    void beginBatch() {
+        beginChange();
+    }
+
+    /**
+     * Ends a batch started with {@link #beginBatch()}
+     */
+    void endBatch() {
+        endChange();
+    }
+
+    /**
+     * Finds where an element sits in the list by identity. The search starts at the position the
+     * element was stored at and works outwards, so it costs how far insertions and removals
+     * have shifted the element since, which is usually nothing.
+     * @param element The element to find
+     * @return Its index, or -1 if the list does not hold it
+     */
+    int positionOf(Object element) {
+        Integer hint = positions.get(element);
+        if (hint == null) {
+            return -1;
+        }
+        int n = elements.size();
+        int at = Math.min(hint, n - 1);
+        for (int d = 0; at - d >= 0 || at + d < n; d++) {
+            if (at - d >= 0 && elements.get(at - d) == element) {
+                return remember(element, at - d);
+            }
+            if (at + d < n && elements.get(at + d) == element) {
+                return remember(element, at + d);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reorders some of this list's elements into the order the list holds them in,
+     * for example the matches of a search made against an unordered index
+     * @param subset Elements of this list, sorted in place
+     */
+    void sortInListOrder(List<E> subset) {
+        if (subset.size() < 2) {
+            return;
+        }
+        long[] keyed = new long[subset.size()];
+        for (int i = 0; i < keyed.length; i++) {
+            keyed[i] = (long) positionOf(subset.get(i)) << 32 | i;
+        }
+        Arrays.sort(keyed);
+        List<E> unsorted = new ArrayList<>(subset);
+        for (int i = 0; i < keyed.length; i++) {
+            subset.set(i, unsorted.get((int) keyed[i]));
+        }
+    }
+
+    private int remember(Object element, int index) {
+        positions.put(elements.get(index), index);
+        return index;
+    }
+
+    /**
+     * Tells listeners that the element at an index was changed in place
+     * @param index The index of the changed element
+     */
+    void fireUpdated(int index) {
+        beginChange();
+        try {
+            nextUpdate(index);
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public E get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    protected void doAdd(int index, E element) {
+        elements.add(index, element);
+        positions.put(element, index);
+    }
+
+    @Override
+    protected E doSet(int index, E element) {
+        E old = elements.set(index, element);
+        positions.remove(old);
+        positions.put(element, index);
+        return old;
+    }
+
+    @Override
+    protected E doRemove(int index) {
+        E old = elements.remove(index);
+        positions.remove(old);
+        return old;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) {
+            return;
+        }
+        beginChange();
+        try {
+            List<E> range = elements.subList(fromIndex, toIndex);
+            nextRemove(fromIndex, new ArrayList<>(range));
+            for (E element : range) {
+                positions.remove(element);
+            }
+            range.clear();
+            modCount++;
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        if (c.isEmpty()) {
+            return false;
+        }
+        beginChange();
+        try {
+            int from = elements.size();
+            elements.addAll(c);
+            for (int i = from; i < elements.size(); i++) {
+                positions.put(elements.get(i), i);
+            }
+            nextAdd(from, elements.size());
+            modCount++;
+        } finally {
+            endChange();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return !removeEach(c instanceof Set ? (Set<?>) c : new HashSet<>(c)).isEmpty();
+    }
+
+    /**
+     * Removes every element found in a set, compacting the list in a single pass
+     * @param doomed The elements to remove
+     * @return The elements that were removed, in list order
+     */
+    List<E> removeEach(Set<?> doomed) {
+        List<E> removed = new ArrayList<>();
+        if (doomed.isEmpty()) {
+            return removed;
+        }
+        beginChange();
+        try {
+            int kept = 0;
+            List<E> run = null;
+            for (int i = 0, n = elements.size(); i < n; i++) {
+                E element = elements.get(i);
+                if (doomed.contains(element)) {
+                    positions.remove(element);
+                    if (run == null) {
+                        run = new ArrayList<>();
+                    }
+                    run.add(element);
+                    removed.add(element);
+                } else {
+                    if (run != null) {
+                        nextRemove(kept, run);
+                        run = null;
+                    }
+                    if (kept < i) {
+                        elements.set(kept, element);
+                        positions.put(element, kept);
+                    }
+                    kept++;
+                }
+            }
+            if (run != null) {
+                nextRemove(kept, run);
+            }
+            if (!removed.isEmpty()) {
+                elements.subList(kept, elements.size()).clear();
+                modCount++;
+            }
+        } finally {
+            endChange();
+        }
+        return removed;
+    }
+}
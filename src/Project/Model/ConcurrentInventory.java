@@ -0,0 +1,519 @@
+package Project.Model;
+
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * ConcurrentInventory lets any thread change the inventory while the tables keep reading an
+ * ordinary {@link Inventory}. The authoritative parts and products live in concurrent maps keyed
+ * by ID, so writers on scanner or integration threads only touch a map bin and never wait for
+ * the UI. Each write marks its ID dirty; the first write after a drain schedules one drain on the
+ * apply executor, which by default is the JavaFX Application Thread. The drain copies the latest
+ * state of every dirty ID into the wrapped inventory inside {@link Inventory#batch(Runnable)},
+ * so however many writes arrive between pulses the tables see one change per list.
+ * <p>
+ * The wrapped inventory is only a read model of the maps. Edits made on it on the apply thread,
+ * such as those made by the forms, are checked against the maps before it changes: an add must
+ * claim a free ID, and a replacement, in-place edit or delete only goes ahead while the maps still
+ * hold the very part or product the form was showing. If another thread replaced or removed it in
+ * the meantime the inventory refuses the edit, rather than one of the two changes being lost.
+ * Parts and products handed to this class are shared with the wrapped inventory and should not be
+ * changed afterwards except through it; send a replacement with the same ID instead.
+ * @author Diar Shabani
+ */
+public class ConcurrentInventory {
+    private final Inventory view;
+    private final Executor applyExecutor;
+    private final ConcurrentHashMap<Integer, Part> parts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Product> products = new ConcurrentHashMap<>();
+    private final Set<Integer> dirtyParts = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> dirtyProducts = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final List<Runnable> applyListeners = new CopyOnWriteArrayList<>();
+    private boolean draining;
+
+    /**
+     * Wraps an inventory, applying changes on the JavaFX Application Thread
+     * @param view The inventory shown by the tables
+     */
+    public ConcurrentInventory(Inventory view) {
+        this(view, Platform::runLater);
+    }
+
+    /**
+     * Wraps an inventory, applying changes with the given executor. The executor must run
+     * tasks one at a time on the thread that owns the inventory; headless callers can pass
+     * a single thread executor.
+     * @param view The inventory read by the tables
+     * @param applyExecutor Runs the drains that copy changes into the inventory
+     */
+    public ConcurrentInventory(Inventory view, Executor applyExecutor) {
+        this.view = view;
+        this.applyExecutor = applyExecutor;
+        for (Part part : view.getAllParts()) {
+            parts.putIfAbsent(part.getId(), part);
+        }
+        for (Product product : view.getAllProducts()) {
+            products.putIfAbsent(product.getId(), product);
+        }
+        view.setStore(this);
+    }
+
+    /**
+     * Returns the inventory the tables read from. Only use it on the apply thread.
+     * @return The wrapped inventory
+     */
+    public Inventory getInventory() {
+        return view;
+    }
+
+    /**
+     * Adds a part, or replaces the part with the same ID. Safe to call from any thread.
+     * @param part The part to store
+     */
+    public void putPart(Part part) {
+        parts.put(part.getId(), part);
+        markPart(part.getId());
+    }
+
+    /**
+     * Adds a part only if no part has its ID, checking and adding in one atomic step.
+     * Safe to call from any thread.
+     * @param part The part to store
+     * @return True if the part was added, false if its ID was already taken
+     */
+    public boolean putPartIfAbsent(Part part) {
+        if (parts.putIfAbsent(part.getId(), part) != null) {
+            return false;
+        }
+        markPart(part.getId());
+        return true;
+    }
+
+    /**
+     * Replaces a part with the result of a function of its latest version. The function may run
+     * more than once if other threads update the same part at the same time, and must return a
+     * new part with the same ID rather than changing the one it is given.
+     * @param partId The ID of the part to change
+     * @param change Produces the replacement part
+     * @return The replacement, or null if no part has the ID
+     */
+    public Part updatePart(int partId, UnaryOperator<Part> change) {
+        Part updated = parts.computeIfPresent(partId, (id, part) -> change.apply(part));
+        if (updated != null) {
+            markPart(partId);
+        }
+        return updated;
+    }
+
+    /**
+     * Removes a part. Safe to call from any thread.
+     * @param partId The ID of the part to remove
+     * @return True if a part had the ID
+     */
+    public boolean deletePart(int partId) {
+        if (parts.remove(partId) != null) {
+            markPart(partId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds a product, or replaces the product with the same ID. Safe to call from any thread.
+     * @param product The product to store
+     */
+    public void putProduct(Product product) {
+        products.put(product.getId(), product);
+        markProduct(product.getId());
+    }
+
+    /**
+     * Adds a product only if no product has its ID, checking and adding in one atomic step.
+     * Safe to call from any thread.
+     * @param product The product to store
+     * @return True if the product was added, false if its ID was already taken
+     */
+    public boolean putProductIfAbsent(Product product) {
+        if (products.putIfAbsent(product.getId(), product) != null) {
+            return false;
+        }
+        markProduct(product.getId());
+        return true;
+    }
+
+    /**
+     * Removes a product. Safe to call from any thread.
+     * @param productId The ID of the product to remove
+     * @return True if a product had the ID
+     */
+    public boolean deleteProduct(int productId) {
+        if (products.remove(productId) != null) {
+            markProduct(productId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Looks up the latest version of a part, including changes not yet shown in the tables
+     * @param partId The part ID
+     * @return The part, or null if none has the ID
+     */
+    public Part lookupPart(int partId) {
+        return parts.get(partId);
+    }
+
+    /**
+     * Looks up the latest version of a product, including changes not yet shown in the tables
+     * @param productId The product ID
+     * @return The product, or null if none has the ID
+     */
+    public Product lookupProduct(int productId) {
+        return products.get(productId);
+    }
+
+    /**
+     * Searches the parts shown in the tables by name or ID, on any thread. Changes not yet
+     * drained into the tables are not seen.
+     * @param text The text to search for
+     * @param limit The most parts to return
+     * @return Up to limit matching parts, in no particular order
+     */
+    public List<Part> searchParts(String text, int limit) {
+        return view.searchParts(text, limit);
+    }
+
+    /**
+     * Searches the products shown in the tables by name or ID, on any thread. Changes not yet
+     * drained into the tables are not seen.
+     * @param text The text to search for
+     * @param limit The most products to return
+     * @return Up to limit matching products, in no particular order
+     */
+    public List<Product> searchProducts(String text, int limit) {
+        return view.searchProducts(text, limit);
+    }
+
+    /**
+     * Returns a live, unmodifiable view of the latest parts, safe to iterate on any thread
+     * @return Every part, in no particular order
+     */
+    public Collection<Part> getParts() {
+        return Collections.unmodifiableCollection(parts.values());
+    }
+
+    /**
+     * Returns a live, unmodifiable view of the latest products, safe to iterate on any thread
+     * @return Every product, in no particular order
+     */
+    public Collection<Product> getProducts() {
+        return Collections.unmodifiableCollection(products.values());
+    }
+
+    /**
+     * Registers a callback run on the apply thread after each drain, for example to refresh
+     * table cells of parts replaced in place
+     * @param listener The callback
+     */
+    public void addApplyListener(Runnable listener) {
+        applyListeners.add(listener);
+    }
+
+    /**
+     * Removes a callback registered with {@link #addApplyListener(Runnable)}
+     * @param listener The callback
+     */
+    public void removeApplyListener(Runnable listener) {
+        applyListeners.remove(listener);
+    }
+
+    private void markPart(int partId) {
+        dirtyParts.add(partId);
+        scheduleDrain();
+    }
+
+    private void markProduct(int productId) {
+        dirtyProducts.add(productId);
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            applyExecutor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Copies the latest state of every dirty ID into the wrapped inventory. The flag is cleared
+     * before the dirty sets are read, so a write that lands during the drain is either picked up
+     * now or schedules the next drain.
+     */
+    private void drain() {
+        drainScheduled.set(false);
+        List<Part> addedParts = new ArrayList<>();
+        List<Part> updatedParts = new ArrayList<>();
+        List<Part> deletedParts = new ArrayList<>();
+        for (Iterator<Integer> it = dirtyParts.iterator(); it.hasNext(); ) {
+            int id = it.next();
+            it.remove();
+            Part latest = parts.get(id);
+            Part shown = view.lookupPart(id);
+            if (latest == null) {
+                if (shown != null) {
+                    deletedParts.add(shown);
+                }
+            } else if (shown == null) {
+                addedParts.add(latest);
+            } else if (shown != latest) {
+                updatedParts.add(latest);
+            }
+        }
+
+        List<Product> addedProducts = new ArrayList<>();
+        List<Product> updatedProducts = new ArrayList<>();
+        List<Product> deletedProducts = new ArrayList<>();
+        for (Iterator<Integer> it = dirtyProducts.iterator(); it.hasNext(); ) {
+            int id = it.next();
+            it.remove();
+            Product latest = products.get(id);
+            Product shown = view.lookupProduct(id);
+            if (latest == null) {
+                if (shown != null) {
+                    deletedProducts.add(shown);
+                }
+            } else if (shown == null) {
+                addedProducts.add(latest);
+            } else if (shown != latest) {
+                updatedProducts.add(latest);
+            }
+        }
+
+        draining = true;
+        try {
+            view.batch(() -> {
+                view.deleteProducts(deletedProducts);
+                view.deleteParts(deletedParts);
+                view.addParts(addedParts);
+                view.updateParts(updatedParts);
+                view.addProducts(addedProducts);
+                view.updateProducts(updatedProducts);
+            });
+        } finally {
+            draining = false;
+        }
+        for (Runnable listener : applyListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Claims the ID of a part being added to the wrapped inventory
+     * @return True if the ID was free or already held by the part
+     */
+    boolean claimPart(Part part) {
+        if (draining) {
+            return true;
+        }
+        Part holder = parts.putIfAbsent(part.getId(), part);
+        return holder == null || holder == part;
+    }
+
+    /**
+     * Claims the IDs of parts being added to the wrapped inventory together, giving back the
+     * ones already claimed if any ID is taken
+     * @return True if every ID was claimed
+     */
+    boolean claimParts(Collection<? extends Part> added) {
+        List<Part> claimed = new ArrayList<>();
+        for (Part part : added) {
+            if (!claimPart(part)) {
+                for (Part undo : claimed) {
+                    parts.remove(undo.getId(), undo);
+                }
+                return false;
+            }
+            claimed.add(part);
+        }
+        return true;
+    }
+
+    /**
+     * Swaps a part for its replacement in the wrapped inventory, if the part is still the latest
+     * version of its ID and any new ID is free
+     * @return True if the swap was recorded
+     */
+    boolean swapPart(Part current, Part replacement) {
+        if (draining) {
+            return true;
+        }
+        int oldId = current.getId();
+        int newId = replacement.getId();
+        if (oldId == newId) {
+            return parts.replace(oldId, current, replacement);
+        }
+        if (parts.putIfAbsent(newId, replacement) != null) {
+            return false;
+        }
+        if (!parts.remove(oldId, current)) {
+            parts.remove(newId, replacement);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Edits a part of the wrapped inventory in place while holding its ID, so no other thread can
+     * replace it halfway through. The edit only runs if the part is still the latest version of
+     * its ID. If the edit moves the part to a new ID that another thread has already claimed,
+     * the other thread's part keeps that ID and replaces the edited one at the next drain.
+     * @param partId The ID the part held before the edit
+     * @return True if the edit ran
+     */
+    boolean editPart(int partId, Part part, Consumer<? super Part> edit) {
+        if (draining) {
+            edit.accept(part);
+            return true;
+        }
+        Part result = parts.computeIfPresent(partId, (id, current) -> {
+            if (current != part) {
+                return current;
+            }
+            edit.accept(part);
+            return part;
+        });
+        if (result != part) {
+            return false;
+        }
+        int newId = part.getId();
+        if (newId != partId) {
+            Part holder = parts.putIfAbsent(newId, part);
+            parts.remove(partId, part);
+            if (holder != null) {
+                markPart(newId);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Releases the ID of a part being deleted from the wrapped inventory
+     * @return False if another thread has replaced the part, which should then stay
+     */
+    boolean releasePart(Part part) {
+        if (draining) {
+            return true;
+        }
+        return parts.remove(part.getId(), part) || !parts.containsKey(part.getId());
+    }
+
+    /**
+     * Claims the ID of a product being added to the wrapped inventory
+     * @return True if the ID was free or already held by the product
+     */
+    boolean claimProduct(Product product) {
+        if (draining) {
+            return true;
+        }
+        Product holder = products.putIfAbsent(product.getId(), product);
+        return holder == null || holder == product;
+    }
+
+    /**
+     * Claims the IDs of products being added to the wrapped inventory together, giving back the
+     * ones already claimed if any ID is taken
+     * @return True if every ID was claimed
+     */
+    boolean claimProducts(Collection<? extends Product> added) {
+        List<Product> claimed = new ArrayList<>();
+        for (Product product : added) {
+            if (!claimProduct(product)) {
+                for (Product undo : claimed) {
+                    products.remove(undo.getId(), undo);
+                }
+                return false;
+            }
+            claimed.add(product);
+        }
+        return true;
+    }
+
+    /**
+     * Swaps a product for its replacement in the wrapped inventory, if the product is still the
+     * latest version of its ID and any new ID is free
+     * @return True if the swap was recorded
+     */
+    boolean swapProduct(Product current, Product replacement) {
+        if (draining) {
+            return true;
+        }
+        int oldId = current.getId();
+        int newId = replacement.getId();
+        if (oldId == newId) {
+            return products.replace(oldId, current, replacement);
+        }
+        if (products.putIfAbsent(newId, replacement) != null) {
+            return false;
+        }
+        if (!products.remove(oldId, current)) {
+            products.remove(newId, replacement);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Edits a product of the wrapped inventory in place while holding its ID.
+     * See {@link #editPart(int, Part, Consumer)}.
+     * @param productId The ID the product held before the edit
+     * @return True if the edit ran
+     */
+    boolean editProduct(int productId, Product product, Consumer<? super Product> edit) {
+        if (draining) {
+            edit.accept(product);
+            return true;
+        }
+        Product result = products.computeIfPresent(productId, (id, current) -> {
+            if (current != product) {
+                return current;
+            }
+            edit.accept(product);
+            return product;
+        });
+        if (result != product) {
+            return false;
+        }
+        int newId = product.getId();
+        if (newId != productId) {
+            Product holder = products.putIfAbsent(newId, product);
+            products.remove(productId, product);
+            if (holder != null) {
+                markProduct(newId);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Releases the ID of a product being deleted from the wrapped inventory
+     * @return False if another thread has replaced the product, which should then stay
+     */
+    boolean releaseProduct(Product product) {
+        if (draining) {
+            return true;
+        }
+        return products.remove(product.getId(), product) || !products.containsKey(product.getId());
+    }
+}
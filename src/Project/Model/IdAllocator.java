@@ -0,0 +1,71 @@
+package Project.Model;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * IdAllocator hands out the lowest unused positive ID for parts or products.
+ * Used IDs below {@link #DENSE_LIMIT} are tracked in a bitset, so finding the next free ID skips
+ * over taken IDs a word at a time instead of rescanning the inventory for every candidate.
+ * Every ID below firstFree is known to be taken, so the search resumes from there. IDs at or
+ * above the limit, which only arrive from imports or the HTTP API, are kept in a set so one
+ * huge ID cannot grow the bitset to hundreds of megabytes.
+ * <p>
+ * The inventory is normally changed on the JavaFX Application Thread, but the methods are
+ * synchronized so a peek from another thread never sees a half-updated firstFree.
+ * @author Diar Shabani
+ */
+public class IdAllocator {
+    /**
+     * The first ID tracked in the outlier set instead of the bitset, which caps the bitset at 2 MB
+     */
+    public static final int DENSE_LIMIT = 1 << 24;
+
+    private final BitSet used = new BitSet();
+    private final Set<Integer> outliers = new HashSet<>();
+    private int firstFree = 1;
+
+    /**
+     * Returns the lowest free ID without claiming it
+     * @return The next available ID, always 1 or greater
+     */
+    public synchronized int peek() {
+        firstFree = used.nextClearBit(firstFree);
+        if (firstFree < DENSE_LIMIT) {
+            return firstFree;
+        }
+        int id = DENSE_LIMIT;
+        while (outliers.contains(id)) {
+            id++;
+        }
+        return id;
+    }
+
+    /**
+     * Marks an ID as taken. IDs below 1 are never handed out, so they are ignored.
+     * @param id The ID in use
+     */
+    public synchronized void reserve(int id) {
+        if (id >= DENSE_LIMIT) {
+            outliers.add(id);
+        } else if (id > 0) {
+            used.set(id);
+        }
+    }
+
+    /**
+     * Returns an ID to the free pool
+     * @param id The ID no longer in use
+     */
+    public synchronized void release(int id) {
+        if (id >= DENSE_LIMIT) {
+            outliers.remove(id);
+        } else if (id > 0) {
+            used.clear(id);
+            if (id < firstFree) {
+                firstFree = id;
+            }
+        }
+    }
+}
@@ -3,38 +3,158 @@ package Project.Model;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
 /**
  * Inventory class provides a means to manage and store part and product objects
  * @author Diar Shabani
  */
 public class Inventory {
 
-    private ObservableList<Part> allParts;
-    private ObservableList<Product> allProducts;
+    private BatchObservableList<Part> allParts;
+    private BatchObservableList<Product> allProducts;
+    private final Map<Integer, Part> partsById = new HashMap<>();
+    private final Map<Integer, Product> productsById = new HashMap<>();
+    private final Map<Integer, Integer> partIdShares = new HashMap<>();
+    private final Map<Integer, Integer> productIdShares = new HashMap<>();
+    private final IdAllocator partIds = new IdAllocator();
+    private final IdAllocator productIds = new IdAllocator();
+    private final TrigramIndex<Part> partNames = new TrigramIndex<>(Part::getName, Part::getId);
+    private final TrigramIndex<Product> productNames = new TrigramIndex<>(Product::getName, Product::getId);
+    private final WhereUsedIndex whereUsed = new WhereUsedIndex();
+    private PartColumnCache columnCache;
+    private StockWatchlist<Part> partStock;
+    private StockWatchlist<Product> productStock;
+    private RangeIndex<Part> partRanges;
+    private RangeIndex<Product> productRanges;
+    private InventoryLog log;
+    private ConcurrentInventory store;
+    private volatile Object editing;
+    private InventoryMetrics metrics;
 
     /**
      * Constructs a new instance of the Inventory class with initialized lists
      */
     public Inventory() {
-        allParts = FXCollections.observableArrayList();
-        allProducts = FXCollections.observableArrayList();
+        allParts = new BatchObservableList<>();
+        allProducts = new BatchObservableList<>();
     }
 
     /**
      * Adds a new part into the inventory
      * @param newPart The part object to be added
+     * @throws IllegalStateException If the inventory is wrapped by a {@link ConcurrentInventory}
+     * and another thread has already added a part with the same ID
      */
     public void addPart(Part newPart) {
         //System.out.println("Part added: " + newPart + ", Total parts: " + allParts.size());
+        long start = metrics == null ? 0 : System.nanoTime();
+        if (store != null && !store.claimPart(newPart)) {
+            throw new IllegalStateException("Part ID " + newPart.getId() + " is already in use");
+        }
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        indexPart(newPart);
         allParts.add(newPart);
+        if (log != null) {
+            log.partAdded(newPart);
+        }
+        event.finish("addPart", allParts.size(), 1);
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.ADD_PART, start);
+        }
+    }
+
+    /**
+     * Adds many parts at once. The parts list fires a single change for the whole batch
+     * instead of one per part.
+     * @param newParts The parts to be added
+     * @throws IllegalStateException If another thread has already added a part with one of the IDs,
+     * in which case none of the parts are added
+     */
+    public void addParts(Collection<? extends Part> newParts) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        if (store != null && !store.claimParts(newParts)) {
+            throw new IllegalStateException("A part ID is already in use");
+        }
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        for (Part part : newParts) {
+            indexPart(part);
+        }
+        allParts.addAll(newParts);
+        if (log != null) {
+            for (Part part : newParts) {
+                log.partAdded(part);
+            }
+        }
+        event.finish("addParts", allParts.size(), newParts.size());
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.ADD_PARTS, start);
+        }
     }
 
     /**
      * Adds a new product into the inventory
      * @param newProduct The product to be added
+     * @throws IllegalStateException If the inventory is wrapped by a {@link ConcurrentInventory}
+     * and another thread has already added a product with the same ID
      */
     public void addProduct(Product newProduct) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        if (store != null && !store.claimProduct(newProduct)) {
+            throw new IllegalStateException("Product ID " + newProduct.getId() + " is already in use");
+        }
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        indexProduct(newProduct);
         allProducts.add(newProduct);
+        if (log != null) {
+            log.productAdded(newProduct);
+        }
+        event.finish("addProduct", allProducts.size(), 1);
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.ADD_PRODUCT, start);
+        }
+    }
+
+    /**
+     * Adds many products at once. The products list fires a single change for the whole batch
+     * instead of one per product.
+     * @param newProducts The products to be added
+     * @throws IllegalStateException If another thread has already added a product with one of the IDs,
+     * in which case none of the products are added
+     */
+    public void addProducts(Collection<? extends Product> newProducts) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        if (store != null && !store.claimProducts(newProducts)) {
+            throw new IllegalStateException("A product ID is already in use");
+        }
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        for (Product product : newProducts) {
+            indexProduct(product);
+        }
+        allProducts.addAll(newProducts);
+        if (log != null) {
+            for (Product product : newProducts) {
+                log.productAdded(product);
+            }
+        }
+        event.finish("addProducts", allProducts.size(), newProducts.size());
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.ADD_PRODUCTS, start);
+        }
     }
 
     /**
@@ -43,12 +163,12 @@ public class Inventory {
      * @return The matched part or null if not found
      */
     public Part lookupPart(int partId) {
-        for (Part part : allParts) {
-            if (part.getId() == partId) {
-                return part;
-            }
+        long start = metrics == null ? 0 : System.nanoTime();
+        Part part = partsById.get(partId);
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.LOOKUP_PART, start);
         }
-        return null;
+        return part;
     }
 
     /**
@@ -57,78 +177,772 @@ public class Inventory {
      * @returnThe matched product or null if not found
      */
     public Product lookupProduct(int productId) {
-        for (Product product : allProducts) {
-            if (product.getId() == productId) {
-                return product;
-            }
+        long start = metrics == null ? 0 : System.nanoTime();
+        Product product = productsById.get(productId);
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.LOOKUP_PRODUCT, start);
         }
-        return null;
+        return product;
     }
 
     /**
-     * Finds parts based on a name
+     * Finds parts based on a name, using the trigram index so only candidates that share
+     * every trigram of the search text are checked
      * @param partName The name to search for
-     * @return A list of parts with matching names
+     * @return A list of parts with matching names, in inventory order
      */
     public ObservableList<Part> lookupPart(String partName) {
-        ObservableList<Part> matchingParts = FXCollections.observableArrayList();
-        for (Part part : allParts) {
-            if (part.getName().toLowerCase().contains(partName.toLowerCase())||(part.getId()+"").contains(partName)) {
-                matchingParts.add(part);
-            }
+        long start = metrics == null ? 0 : System.nanoTime();
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        List<Part> found = partNames.search(partName);
+        allParts.sortInListOrder(found);
+        ObservableList<Part> parts = FXCollections.observableArrayList(found);
+        event.finish("lookupPart", allParts.size(), parts.size());
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.SEARCH_PARTS, start);
         }
-        return matchingParts;
+        return parts;
     }
 
     /**
-     * Finds products based on a name
+     * Finds products based on a name, using the trigram index so only candidates that share
+     * every trigram of the search text are checked
      * @param productName The name to search for
-     * @return  A list of products with matching names
+     * @return  A list of products with matching names, in inventory order
      */
     public ObservableList<Product> lookupProduct(String productName) {
-        ObservableList<Product> matchingProducts = FXCollections.observableArrayList();
-        for (Product product : allProducts) {
-            if (product.getName().toLowerCase().contains(productName.toLowerCase())||(product.getId()+"").contains(productName)) {
-                matchingProducts.add(product);
-            }
+        long start = metrics == null ? 0 : System.nanoTime();
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        List<Product> found = productNames.search(productName);
+        allProducts.sortInListOrder(found);
+        ObservableList<Product> products = FXCollections.observableArrayList(found);
+        event.finish("lookupProduct", allProducts.size(), products.size());
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.SEARCH_PRODUCTS, start);
+        }
+        return products;
+    }
+
+    /**
+     * Finds up to a number of parts whose name or ID contains the search text. Unlike
+     * {@link #lookupPart(String)} this may be called on any thread, such as the HTTP server's
+     * request threads: the name index is safe to search concurrently and the search stops as
+     * soon as enough parts are found, but the parts come back in no particular order.
+     * @param partName The name to search for
+     * @param limit The most parts to return
+     * @return The matching parts
+     */
+    public List<Part> searchParts(String partName, int limit) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        List<Part> found = partNames.search(new TrigramIndex.Query(partName), limit);
+        event.finish("searchParts", partNames.size(), found.size());
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.SEARCH_PARTS, start);
+        }
+        return found;
+    }
+
+    /**
+     * Finds up to a number of products whose name or ID contains the search text, on any thread,
+     * in no particular order. See {@link #searchParts(String, int)}.
+     * @param productName The name to search for
+     * @param limit The most products to return
+     * @return The matching products
+     */
+    public List<Product> searchProducts(String productName, int limit) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        List<Product> found = productNames.search(new TrigramIndex.Query(productName), limit);
+        event.finish("searchProducts", productNames.size(), found.size());
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.SEARCH_PRODUCTS, start);
         }
-        return matchingProducts;
+        return found;
+    }
+
+    /**
+     * Creates a live, filterable view over all parts for the parts tables
+     * @return A view that initially shows every part
+     */
+    public LiveSearchView<Part> createPartView() {
+        return new LiveSearchView<>(allParts, partNames);
+    }
+
+    /**
+     * Creates a live, filterable view over all products for the products table
+     * @return A view that initially shows every product
+     */
+    public LiveSearchView<Product> createProductView() {
+        return new LiveSearchView<>(allProducts, productNames);
     }
 
     /**
-     * Modifies an existing part at a given index
+     * Modifies an existing part at a given index. Products listing the replaced part
+     * are pointed at the new one.
      * @paramindex The index of the part to be changed
      * @param selectedPart The updated part data
+     * @throws IllegalStateException If another thread has replaced or removed the part at the index
      */
     public void updatePart(int index, Part selectedPart) {
+        Part replaced = allParts.get(index);
+        if (store != null && !store.swapPart(replaced, selectedPart)) {
+            throw new IllegalStateException("Part ID " + replaced.getId() + " was changed by another thread");
+        }
+        putPartAt(index, replaced, selectedPart);
+    }
+
+    /**
+     * Puts a part in place of the one at an index, once any concurrent store has agreed
+     */
+    private void putPartAt(int index, Part replaced, Part selectedPart) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        StockWatchlist.Level level = partStock == null ? null : partStock.getLevel(replaced);
+        boolean vacated = forgetPart(replaced);
+        indexPart(selectedPart);
+        if (level != null) {
+            partStock.inherit(selectedPart, level);
+        }
         allParts.set(index, selectedPart);
+        if (vacated && !partsById.containsKey(replaced.getId())) {
+            reassignPartIds(new HashSet<>(List.of(replaced.getId())));
+        }
+        for (Product product : whereUsed.replace(replaced, selectedPart)) {
+            product.repointAssociatedPart(replaced, selectedPart);
+        }
+        if (log != null) {
+            log.partUpdated(replaced.getId(), selectedPart);
+        }
+        event.finish("updatePart", allParts.size(), 1);
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.UPDATE_PART, start);
+        }
+    }
+
+    /**
+     * Swaps a part for a replacement, for example one of the other part type, without
+     * searching for it. Products listing the replaced part are pointed at the new one.
+     * @param currentPart The part in the inventory
+     * @param replacement The part to put in its place
+     * @return True if the inventory held the current part, and no other thread has replaced it
+     */
+    public boolean replacePart(Part currentPart, Part replacement) {
+        int index = allParts.positionOf(currentPart);
+        if (index < 0 || store != null && !store.swapPart(currentPart, replacement)) {
+            return false;
+        }
+        putPartAt(index, currentPart, replacement);
+        return true;
+    }
+
+    /**
+     * Edits the part holding an ID in place, in constant time. The part keeps its identity,
+     * so products listing it and tables showing it need no repointing; the indexes are
+     * brought up to date and the parts list reports the part as updated. The watchlist
+     * reports at most one crossing for the whole edit.
+     * @param partId The ID of the part to edit
+     * @param edit Changes the part's fields
+     * @return The edited part, or null if no part has the ID or another thread has replaced it
+     */
+    public Part editPart(int partId, Consumer<? super Part> edit) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        Part part = partsById.get(partId);
+        if (part == null) {
+            return null;
+        }
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        int index = allParts.positionOf(part);
+        String name = part.getName();
+        StockWatchlist.Level level = partStock == null ? null : partStock.remove(part);
+        boolean edited = true;
+        editing = part;
+        try {
+            if (store == null) {
+                edit.accept(part);
+            } else {
+                edited = store.editPart(partId, part, edit);
+            }
+        } finally {
+            editing = null;
+            if (level != null) {
+                partStock.add(part);
+                partStock.inherit(part, level);
+            }
+            if (!Objects.equals(name, part.getName()) || part.getId() != partId) {
+                partNames.remove(part);
+                partNames.add(part);
+            }
+            if (columnCache != null) {
+                columnCache.refresh(part);
+            }
+            if (part.getId() != partId) {
+                registerPartId(part);
+                if (unregisterPartId(partId, part)) {
+                    reassignPartIds(new HashSet<>(List.of(partId)));
+                }
+            }
+            allParts.fireUpdated(index);
+        }
+        if (!edited) {
+            return null;
+        }
+        if (log != null) {
+            log.partUpdated(partId, part);
+        }
+        event.finish("editPart", allParts.size(), 1);
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.UPDATE_PART, start);
+        }
+        return part;
+    }
+
+    /**
+     * Replaces many parts at once, each one replacing the part that currently holds its ID.
+     * The parts list fires a single change for the whole batch.
+     * @param updatedParts The updated part data
+     * @return The number of parts replaced
+     */
+    public int updateParts(Collection<? extends Part> updatedParts) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        int replaced = 0;
+        allParts.beginBatch();
+        try {
+            for (Part part : updatedParts) {
+                Part current = partsById.get(part.getId());
+                if (current != null && current != part && replacePart(current, part)) {
+                    replaced++;
+                }
+            }
+        } finally {
+            allParts.endBatch();
+        }
+        event.finish("updateParts", allParts.size(), replaced);
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.UPDATE_PARTS, start);
+        }
+        return replaced;
     }
 
     /**
      * Modifies an existing product at a given index
      * @param index The index of the product to be changed
      * @param selectedProduct The updated product data
+     * @throws IllegalStateException If another thread has replaced or removed the product at the index
      */
     public void updateProduct(int index, Product selectedProduct) {
+        Product replaced = allProducts.get(index);
+        if (store != null && !store.swapProduct(replaced, selectedProduct)) {
+            throw new IllegalStateException("Product ID " + replaced.getId() + " was changed by another thread");
+        }
+        putProductAt(index, replaced, selectedProduct);
+    }
+
+    /**
+     * Puts a product in place of the one at an index, once any concurrent store has agreed
+     */
+    private void putProductAt(int index, Product replaced, Product selectedProduct) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        StockWatchlist.Level level = productStock == null ? null : productStock.getLevel(replaced);
+        boolean vacated = forgetProduct(replaced);
+        indexProduct(selectedProduct);
+        if (level != null) {
+            productStock.inherit(selectedProduct, level);
+        }
         allProducts.set(index, selectedProduct);
+        if (vacated && !productsById.containsKey(replaced.getId())) {
+            reassignProductIds(new HashSet<>(List.of(replaced.getId())));
+        }
+        if (log != null) {
+            log.productUpdated(replaced.getId(), selectedProduct);
+        }
+        event.finish("updateProduct", allProducts.size(), 1);
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.UPDATE_PRODUCT, start);
+        }
+    }
+
+    /**
+     * Swaps a product for a replacement without searching for it
+     * @param currentProduct The product in the inventory
+     * @param replacement The product to put in its place
+     * @return True if the inventory held the current product, and no other thread has replaced it
+     */
+    public boolean replaceProduct(Product currentProduct, Product replacement) {
+        int index = allProducts.positionOf(currentProduct);
+        if (index < 0 || store != null && !store.swapProduct(currentProduct, replacement)) {
+            return false;
+        }
+        putProductAt(index, currentProduct, replacement);
+        return true;
+    }
+
+    /**
+     * Edits the product holding an ID in place, in constant time. The product keeps its
+     * associated parts and its identity; the indexes are brought up to date and the products
+     * list reports the product as updated. The watchlist reports at most one crossing for the whole edit.
+     * @param productId The ID of the product to edit
+     * @param edit Changes the product's fields
+     * @return The edited product, or null if no product has the ID or another thread has replaced it
+     */
+    public Product editProduct(int productId, Consumer<? super Product> edit) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        Product product = productsById.get(productId);
+        if (product == null) {
+            return null;
+        }
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        int index = allProducts.positionOf(product);
+        String name = product.getName();
+        StockWatchlist.Level level = productStock == null ? null : productStock.remove(product);
+        boolean edited = true;
+        editing = product;
+        try {
+            if (store == null) {
+                edit.accept(product);
+            } else {
+                edited = store.editProduct(productId, product, edit);
+            }
+        } finally {
+            editing = null;
+            if (level != null) {
+                productStock.add(product);
+                productStock.inherit(product, level);
+            }
+            if (!Objects.equals(name, product.getName()) || product.getId() != productId) {
+                productNames.remove(product);
+                productNames.add(product);
+            }
+            if (product.getId() != productId) {
+                registerProductId(product);
+                if (unregisterProductId(productId, product)) {
+                    reassignProductIds(new HashSet<>(List.of(productId)));
+                }
+            }
+            allProducts.fireUpdated(index);
+        }
+        if (!edited) {
+            return null;
+        }
+        if (log != null) {
+            log.productUpdated(productId, product);
+        }
+        event.finish("editProduct", allProducts.size(), 1);
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.UPDATE_PRODUCT, start);
+        }
+        return product;
+    }
+
+    /**
+     * Replaces many products at once, each one replacing the product that currently holds its ID.
+     * The products list fires a single change for the whole batch.
+     * @param updatedProducts The updated product data
+     * @return The number of products replaced
+     */
+    public int updateProducts(Collection<? extends Product> updatedProducts) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        int replaced = 0;
+        allProducts.beginBatch();
+        try {
+            for (Product product : updatedProducts) {
+                Product current = productsById.get(product.getId());
+                if (current != null && current != product && replaceProduct(current, product)) {
+                    replaced++;
+                }
+            }
+        } finally {
+            allProducts.endBatch();
+        }
+        event.finish("updateProducts", allProducts.size(), replaced);
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.UPDATE_PRODUCTS, start);
+        }
+        return replaced;
     }
 
     /**
-     * Erases a specific part from the inventory
+     * Erases a specific part from the inventory and removes it from every product that uses it
      * @param selectedPart The part targeted for deletion
-     * @return True if successful, false otherwise
+     * @return True if successful, false if the inventory did not hold the part or another thread has replaced it
      */
     public boolean deletePart(Part selectedPart) {
-        return allParts.remove(selectedPart);
+        long start = metrics == null ? 0 : System.nanoTime();
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        int index = allParts.positionOf(selectedPart);
+        boolean deleted = index >= 0 && (store == null || store.releasePart(selectedPart));
+        if (deleted) {
+            allParts.remove(index);
+            if (forgetPart(selectedPart)) {
+                reassignPartIds(new HashSet<>(List.of(selectedPart.getId())));
+            }
+            purgePart(selectedPart);
+        }
+        event.finish("deletePart", allParts.size(), deleted ? 1 : 0);
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.DELETE_PART, start);
+        }
+        return deleted;
+    }
+
+    /**
+     * Erases many parts at once and removes them from every product that uses them.
+     * The parts list fires a single change for the whole batch.
+     * @param selectedParts The parts targeted for deletion
+     * @return The number of parts deleted
+     */
+    public int deleteParts(Collection<? extends Part> selectedParts) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        Set<Part> selected = new HashSet<>();
+        for (Part part : selectedParts) {
+            if (store == null || store.releasePart(part)) {
+                selected.add(part);
+            }
+        }
+        List<Part> removed = allParts.removeEach(selected);
+        Set<Integer> vacated = new HashSet<>();
+        for (Part part : removed) {
+            if (forgetPart(part)) {
+                vacated.add(part.getId());
+            }
+        }
+        reassignPartIds(vacated);
+        for (Part part : removed) {
+            purgePart(part);
+        }
+        event.finish("deleteParts", allParts.size(), removed.size());
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.DELETE_PARTS, start);
+        }
+        return removed.size();
     }
 
     /**
      * D Erases a specific product from the inventory
      * @param selectedProduct The product targeted for deletion
-     * @return True if successful, false otherwise
+     * @return True if successful, false if the inventory did not hold the product or another thread has replaced it
      */
     public boolean deleteProduct(Product selectedProduct) {
-        return allProducts.remove(selectedProduct);
+        long start = metrics == null ? 0 : System.nanoTime();
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        int index = allProducts.positionOf(selectedProduct);
+        boolean deleted = index >= 0 && (store == null || store.releaseProduct(selectedProduct));
+        if (deleted) {
+            allProducts.remove(index);
+            if (forgetProduct(selectedProduct)) {
+                reassignProductIds(new HashSet<>(List.of(selectedProduct.getId())));
+            }
+            if (log != null) {
+                log.productDeleted(selectedProduct);
+            }
+        }
+        event.finish("deleteProduct", allProducts.size(), deleted ? 1 : 0);
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.DELETE_PRODUCT, start);
+        }
+        return deleted;
+    }
+
+    /**
+     * Erases many products at once. The products list fires a single change for the whole batch.
+     * @param selectedProducts The products targeted for deletion
+     * @return The number of products deleted
+     */
+    public int deleteProducts(Collection<? extends Product> selectedProducts) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        InventoryEvent event = new InventoryEvent();
+        event.begin();
+        Set<Product> selected = new HashSet<>();
+        for (Product product : selectedProducts) {
+            if (store == null || store.releaseProduct(product)) {
+                selected.add(product);
+            }
+        }
+        List<Product> removed = allProducts.removeEach(selected);
+        Set<Integer> vacated = new HashSet<>();
+        for (Product product : removed) {
+            if (forgetProduct(product)) {
+                vacated.add(product.getId());
+            }
+        }
+        reassignProductIds(vacated);
+        if (log != null) {
+            for (Product product : removed) {
+                log.productDeleted(product);
+            }
+        }
+        event.finish("deleteProducts", allProducts.size(), removed.size());
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.DELETE_PRODUCTS, start);
+        }
+        return removed.size();
+    }
+
+    /**
+     * Runs a group of edits, holding back change notifications until they are all done.
+     * Listeners on the parts list and the products list each receive a single change
+     * covering every edit, so mixed bulk edits cause one table layout rather than one per row.
+     * Batches may be nested.
+     * @param edits The edits to make, using any of the inventory's methods
+     */
+    public void batch(Runnable edits) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        allParts.beginBatch();
+        allProducts.beginBatch();
+        try {
+            edits.run();
+        } finally {
+            try {
+                allParts.endBatch();
+            } finally {
+                allProducts.endBatch();
+            }
+        }
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.BATCH, start);
+        }
+    }
+
+    /**
+     * Finds the products that list a part as an associated part
+     * @param part The part to look up
+     * @return The products using the part
+     */
+    public List<Product> getProductsUsingPart(Part part) {
+        return whereUsed.productsUsing(part);
+    }
+
+    /**
+     * Finds the parts whose field lies between two bounds, inclusive. Answered from the range
+     * indexes when {@link #enableRangeIndexes()} has been called, otherwise by a scan.
+     * @param field The field to compare
+     * @param from The lower bound
+     * @param to The upper bound
+     * @return The matching parts, in ascending order of the field when indexed
+     */
+    public List<Part> findPartsBetween(RangeIndex.Field field, double from, double to) {
+        if (partRanges != null) {
+            return partRanges.range(field, from, true, to, true);
+        }
+        return scan(allParts, partField(field), from, true, to, true);
+    }
+
+    /**
+     * Finds the parts whose field is below a bound, such as those priced under $5
+     * @param field The field to compare
+     * @param bound The bound, which itself does not match
+     * @return The matching parts, in ascending order of the field when indexed
+     */
+    public List<Part> findPartsBelow(RangeIndex.Field field, double bound) {
+        if (partRanges != null) {
+            return partRanges.range(field, Double.NEGATIVE_INFINITY, true, bound, false);
+        }
+        return scan(allParts, partField(field), Double.NEGATIVE_INFINITY, true, bound, false);
+    }
+
+    /**
+     * Finds the products whose field lies between two bounds, inclusive. Answered from the range
+     * indexes when {@link #enableRangeIndexes()} has been called, otherwise by a scan.
+     * @param field The field to compare
+     * @param from The lower bound
+     * @param to The upper bound
+     * @return The matching products, in ascending order of the field when indexed
+     */
+    public List<Product> findProductsBetween(RangeIndex.Field field, double from, double to) {
+        if (productRanges != null) {
+            return productRanges.range(field, from, true, to, true);
+        }
+        return scan(allProducts, productField(field), from, true, to, true);
+    }
+
+    /**
+     * Finds the products whose field is below a bound, such as those with fewer than 3 in stock
+     * @param field The field to compare
+     * @param bound The bound, which itself does not match
+     * @return The matching products, in ascending order of the field when indexed
+     */
+    public List<Product> findProductsBelow(RangeIndex.Field field, double bound) {
+        if (productRanges != null) {
+            return productRanges.range(field, Double.NEGATIVE_INFINITY, true, bound, false);
+        }
+        return scan(allProducts, productField(field), Double.NEGATIVE_INFINITY, true, bound, false);
+    }
+
+    /**
+     * Finds the products whose margin, their price less the price of their associated parts,
+     * is below a threshold. Reads each product's cached material cost, so it never visits
+     * the associated parts.
+     * @param margin The threshold
+     * @return The products with a smaller margin, in inventory order
+     */
+    public List<Product> getProductsWithMarginBelow(double margin) {
+        List<Product> products = new ArrayList<>();
+        for (Product product : allProducts) {
+            if (product.getMargin() < margin) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Checks whether any product in the inventory uses a part
+     * @param part The part to look up
+     * @return True if at least one product lists the part
+     */
+    public boolean isPartInUse(Part part) {
+        return whereUsed.isUsed(part);
+    }
+
+    /**
+     * Makes a concurrent store the owner of this inventory's IDs, so that each later change is
+     * checked against it before this inventory changes
+     * @param store The store this inventory is a read model of
+     */
+    void setStore(ConcurrentInventory store) {
+        this.store = store;
+    }
+
+    /**
+     * Attaches a write-ahead log that every later mutation is appended to.
+     * Replay the log into this inventory before attaching it.
+     * @param log The log to append to, or null to stop logging
+     */
+    public void setLog(InventoryLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Turns on the part column cache, which copies every part's fields into primitive arrays
+     * for fast aggregates over stock and price, at the cost of the extra heap the copies take.
+     * Once enabled it is maintained by addPart, updatePart, editPart and deletePart, and price
+     * and stock changes reach it on any thread. Parts renamed in place other than through
+     * {@link #editPart(int, Consumer)} should be passed to {@link PartColumnCache#refresh(Part)}.
+     * @return The cache
+     */
+    public PartColumnCache enablePartColumnCache() {
+        if (columnCache == null) {
+            columnCache = new PartColumnCache();
+            for (Part part : allParts) {
+                columnCache.add(part);
+            }
+        }
+        return columnCache;
+    }
+
+    /**
+     * Turns on sorted indexes over the price, stock, min and max of every part and product,
+     * so the find methods answer in logarithmic time plus the number of matches. Once enabled
+     * the indexes are kept up to date by every add, delete, update and field change.
+     */
+    public void enableRangeIndexes() {
+        if (partRanges == null) {
+            RangeIndex<Part> parts = new RangeIndex<>(Inventory::partField);
+            for (Part part : allParts) {
+                parts.add(part);
+            }
+            RangeIndex<Product> products = new RangeIndex<>(Inventory::productField);
+            for (Product product : allProducts) {
+                products.add(product);
+            }
+            partRanges = parts;
+            productRanges = products;
+        }
+    }
+
+    /**
+     * Turns on the part watchlist, which keeps parts ordered by how close their stock is to
+     * min and max. Once enabled it is kept up to date by every change to a part's stock, min or max.
+     * @return The watchlist
+     */
+    public StockWatchlist<Part> enablePartWatchlist() {
+        if (partStock == null) {
+            StockWatchlist<Part> watchlist = new StockWatchlist<>(Part::getStock, Part::getMin, Part::getMax);
+            for (Part part : allParts) {
+                watchlist.add(part);
+            }
+            partStock = watchlist;
+        }
+        return partStock;
+    }
+
+    /**
+     * Turns on the product watchlist, which keeps products ordered by how close their stock is to
+     * min and max. Once enabled it is kept up to date by every change to a product's stock, min or max.
+     * @return The watchlist
+     */
+    public StockWatchlist<Product> enableProductWatchlist() {
+        if (productStock == null) {
+            StockWatchlist<Product> watchlist = new StockWatchlist<>(Product::getStock, Product::getMin, Product::getMax);
+            for (Product product : allProducts) {
+                watchlist.add(product);
+            }
+            productStock = watchlist;
+        }
+        return productStock;
+    }
+
+    /**
+     * Returns the part watchlist
+     * @return The watchlist, or null if it has not been enabled
+     */
+    public StockWatchlist<Part> getPartWatchlist() {
+        return partStock;
+    }
+
+    /**
+     * Returns the product watchlist
+     * @return The watchlist, or null if it has not been enabled
+     */
+    public StockWatchlist<Product> getProductWatchlist() {
+        return productStock;
+    }
+
+    /**
+     * Turns on latency recording for lookups, searches, adds, updates, deletes and ID allocation,
+     * and publishes the results over JMX. Until this is called the operations only pay for a null check.
+     * @param name The name the metrics are published under
+     * @return The metrics
+     */
+    public InventoryMetrics enableMetrics(String name) {
+        if (metrics == null) {
+            metrics = new InventoryMetrics(name);
+            metrics.register();
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the operation metrics
+     * @return The metrics, or null if they have not been enabled
+     */
+    public InventoryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the part column cache
+     * @return The cache, or null if it has not been enabled
+     */
+    public PartColumnCache getPartColumnCache() {
+        return columnCache;
     }
 
     /**
@@ -149,40 +963,368 @@ public class Inventory {
 
     /**
      * Handles retrieving the next number for a apart id
-     * logically earror is if we initialize with an empty parts list and I start from int i.
+     * @return The lowest part ID not currently in use
      */
     public int returnNextPartID() {
-        for (int i = 1; i <= allParts.size() + 1; i++) {
-            boolean idExists = false;
-            for (Part part : allParts) {
-                if (part.getId() == i) {
-                    idExists = true;
-                    break;
-                }
-            }
-            if (!idExists) {
-                return i;
-            }
+        long start = metrics == null ? 0 : System.nanoTime();
+        int id = partIds.peek();
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.NEXT_PART_ID, start);
         }
-        return allParts.size() + 1;
+        return id;
     }
 
     /**
      * Handles retrieving the next number for a product id
+     * @return The lowest product ID not currently in use
      */
     public int returnNextProductID() {
-        for (int i = 1; i <= allProducts.size() + 1; i++) {
-            boolean idExists = false;
-            for (Product product : allProducts) {
-                if (product.getId() == i) {
-                    idExists = true;
-                    break;
+        long start = metrics == null ? 0 : System.nanoTime();
+        int id = productIds.peek();
+        if (metrics != null) {
+            metrics.record(InventoryMetrics.Operation.NEXT_PRODUCT_ID, start);
+        }
+        return id;
+    }
+
+    /**
+     * Registers a part in the ID and name indexes. When two parts share an ID the first one
+     * added wins, matching the order a scan over allParts would find them in.
+     * Parts are indexed before they are added to allParts so list listeners can search them.
+     * @param part The part to index
+     */
+    private void indexPart(Part part) {
+        part.setInventory(this);
+        partNames.add(part);
+        if (columnCache != null) {
+            columnCache.add(part);
+        }
+        if (partStock != null) {
+            partStock.add(part);
+        }
+        if (partRanges != null) {
+            partRanges.add(part);
+        }
+        registerPartId(part);
+    }
+
+    /**
+     * Removes a part from the ID and name indexes
+     * @param part The part being removed from allParts
+     * @return True if the part held its ID, which then needs {@link #reassignPartIds(Set)}
+     */
+    private boolean forgetPart(Part part) {
+        part.setInventory(null);
+        partNames.remove(part);
+        if (columnCache != null) {
+            columnCache.remove(part);
+        }
+        if (partStock != null) {
+            partStock.remove(part);
+        }
+        if (partRanges != null) {
+            partRanges.remove(part);
+        }
+        return unregisterPartId(part.getId(), part);
+    }
+
+    /**
+     * Makes a part the holder of its ID, or counts it as sharing the ID if another part holds it
+     */
+    private void registerPartId(Part part) {
+        if (partsById.putIfAbsent(part.getId(), part) != null) {
+            partIdShares.merge(part.getId(), 1, Integer::sum);
+        }
+        partIds.reserve(part.getId());
+    }
+
+    /**
+     * Drops a part's claim on an ID it was registered under
+     * @return True if the part held the ID, which then needs {@link #reassignPartIds(Set)}
+     */
+    private boolean unregisterPartId(int id, Part part) {
+        if (partsById.remove(id, part)) {
+            return true;
+        }
+        partIdShares.computeIfPresent(id, (key, shares) -> shares == 1 ? null : shares - 1);
+        return false;
+    }
+
+    /**
+     * Frees each vacated ID no other part shares, and hands the rest to the first remaining part
+     * that shares them, in one pass over allParts. The pass is only made when a duplicate ID was vacated.
+     * @param vacated The IDs whose part was removed; emptied by this method
+     */
+    private void reassignPartIds(Set<Integer> vacated) {
+        for (Iterator<Integer> it = vacated.iterator(); it.hasNext(); ) {
+            int id = it.next();
+            if (!partIdShares.containsKey(id)) {
+                partIds.release(id);
+                it.remove();
+            }
+        }
+        if (vacated.isEmpty()) {
+            return;
+        }
+        for (Part other : allParts) {
+            if (vacated.remove(other.getId())) {
+                partsById.put(other.getId(), other);
+                partIdShares.computeIfPresent(other.getId(), (key, shares) -> shares == 1 ? null : shares - 1);
+                if (vacated.isEmpty()) {
+                    return;
                 }
             }
-            if (!idExists) {
-                return i;
+        }
+        for (int id : vacated) {
+            partIds.release(id);
+        }
+    }
+
+    /**
+     * Removes a deleted part from the products using it and logs the deletion
+     * @param part The part removed from allParts
+     */
+    private void purgePart(Part part) {
+        for (Product product : whereUsed.remove(part)) {
+            product.purgeAssociatedPart(part);
+        }
+        if (log != null) {
+            log.partDeleted(part);
+        }
+    }
+
+    /**
+     * Adjusts the material cost of the products listing a part whose price changed, once per
+     * listing, and marks the part for the column cache and the range indexes
+     * @param part The part that changed price
+     * @param delta The new price less the old one
+     */
+    void partPriceChanged(Part part, double delta) {
+        for (Map.Entry<Product, Integer> use : whereUsed.listingsOf(part).entrySet()) {
+            use.getKey().addMaterialCost(delta * use.getValue());
+        }
+        PartColumnCache columns = columnCache;
+        if (columns != null) {
+            columns.markStale(part);
+        }
+        RangeIndex<Part> ranges = partRanges;
+        if (ranges != null) {
+            ranges.refresh(part);
+        }
+    }
+
+    /**
+     * Repositions a product in the range indexes after its price changed
+     * @param product The changed product
+     */
+    void productPriceChanged(Product product) {
+        RangeIndex<Product> ranges = productRanges;
+        if (ranges != null) {
+            ranges.refresh(product);
+        }
+    }
+
+    /**
+     * Repositions a part in the watchlist and the range indexes after its stock, min or max
+     * changed, marks its row in the column cache and logs the stock movement. A part being
+     * edited in place is logged whole once the edit finishes instead. May be called on any thread.
+     * @param part The changed part
+     * @param delta The number of units its stock moved by
+     */
+    void partStockChanged(Part part, int delta) {
+        if (log != null && delta != 0 && editing != part) {
+            log.partStockChanged(part, delta);
+        }
+        PartColumnCache columns = columnCache;
+        if (columns != null) {
+            columns.markStale(part);
+        }
+        StockWatchlist<Part> watchlist = partStock;
+        if (watchlist != null) {
+            watchlist.refresh(part);
+        }
+        RangeIndex<Part> ranges = partRanges;
+        if (ranges != null) {
+            ranges.refresh(part);
+        }
+    }
+
+    /**
+     * Repositions a product in the watchlist and the range indexes after its stock, min or max
+     * changed and logs the stock movement. A product being edited in place is logged whole once
+     * the edit finishes instead. May be called on any thread.
+     * @param product The changed product
+     * @param delta The number of units its stock moved by
+     */
+    void productStockChanged(Product product, int delta) {
+        if (log != null && delta != 0 && editing != product) {
+            log.productStockChanged(product, delta);
+        }
+        StockWatchlist<Product> watchlist = productStock;
+        if (watchlist != null) {
+            watchlist.refresh(product);
+        }
+        RangeIndex<Product> ranges = productRanges;
+        if (ranges != null) {
+            ranges.refresh(product);
+        }
+    }
+
+    /**
+     * Records that a product in this inventory now lists a part
+     * @param product The product
+     * @param part The part it lists
+     */
+    void partAssociated(Product product, Part part) {
+        whereUsed.link(part, product);
+        if (log != null) {
+            log.partAssociated(product, part);
+        }
+    }
+
+    /**
+     * Records that a product in this inventory no longer lists a part
+     * @param product The product
+     * @param part The part it stopped listing
+     */
+    void partDissociated(Product product, Part part) {
+        whereUsed.unlink(part, product);
+        if (log != null) {
+            log.partDissociated(product, part);
+        }
+    }
+
+    /**
+     * Registers a product in the ID, name and where-used indexes. When two products share an ID the first one added wins.
+     * @param product The product to index
+     */
+    private void indexProduct(Product product) {
+        product.setInventory(this);
+        whereUsed.linkAll(product);
+        productNames.add(product);
+        if (productStock != null) {
+            productStock.add(product);
+        }
+        if (productRanges != null) {
+            productRanges.add(product);
+        }
+        registerProductId(product);
+    }
+
+    /**
+     * Removes a product from the ID, name and where-used indexes
+     * @param product The product being removed from allProducts
+     * @return True if the product held its ID, which then needs {@link #reassignProductIds(Set)}
+     */
+    private boolean forgetProduct(Product product) {
+        whereUsed.unlinkAll(product);
+        product.setInventory(null);
+        productNames.remove(product);
+        if (productStock != null) {
+            productStock.remove(product);
+        }
+        if (productRanges != null) {
+            productRanges.remove(product);
+        }
+        return unregisterProductId(product.getId(), product);
+    }
+
+    /**
+     * Makes a product the holder of its ID, or counts it as sharing the ID if another product holds it
+     */
+    private void registerProductId(Product product) {
+        if (productsById.putIfAbsent(product.getId(), product) != null) {
+            productIdShares.merge(product.getId(), 1, Integer::sum);
+        }
+        productIds.reserve(product.getId());
+    }
+
+    /**
+     * Drops a product's claim on an ID it was registered under
+     * @return True if the product held the ID, which then needs {@link #reassignProductIds(Set)}
+     */
+    private boolean unregisterProductId(int id, Product product) {
+        if (productsById.remove(id, product)) {
+            return true;
+        }
+        productIdShares.computeIfPresent(id, (key, shares) -> shares == 1 ? null : shares - 1);
+        return false;
+    }
+
+    /**
+     * Frees each vacated ID no other product shares, and hands the rest to the first remaining product
+     * that shares them, in one pass over allProducts. The pass is only made when a duplicate ID was vacated.
+     * @param vacated The IDs whose product was removed; emptied by this method
+     */
+    private void reassignProductIds(Set<Integer> vacated) {
+        for (Iterator<Integer> it = vacated.iterator(); it.hasNext(); ) {
+            int id = it.next();
+            if (!productIdShares.containsKey(id)) {
+                productIds.release(id);
+                it.remove();
+            }
+        }
+        if (vacated.isEmpty()) {
+            return;
+        }
+        for (Product other : allProducts) {
+            if (vacated.remove(other.getId())) {
+                productsById.put(other.getId(), other);
+                productIdShares.computeIfPresent(other.getId(), (key, shares) -> shares == 1 ? null : shares - 1);
+                if (vacated.isEmpty()) {
+                    return;
+                }
+            }
+        }
+        for (int id : vacated) {
+            productIds.release(id);
+        }
+    }
+
+    /**
+     * Reads one of a part's indexable fields
+     */
+    private static ToDoubleFunction<Part> partField(RangeIndex.Field field) {
+        switch (field) {
+            case PRICE:
+                return Part::getPrice;
+            case STOCK:
+                return Part::getStock;
+            case MIN:
+                return Part::getMin;
+            default:
+                return Part::getMax;
+        }
+    }
+
+    /**
+     * Reads one of a product's indexable fields
+     */
+    private static ToDoubleFunction<Product> productField(RangeIndex.Field field) {
+        switch (field) {
+            case PRICE:
+                return Product::getPrice;
+            case STOCK:
+                return Product::getStock;
+            case MIN:
+                return Product::getMin;
+            default:
+                return Product::getMax;
+        }
+    }
+
+    /**
+     * Checks every item against a range, used when the range indexes are not enabled
+     */
+    private static <T> List<T> scan(List<T> items, ToDoubleFunction<T> field, double from, boolean fromInclusive,
+                                    double to, boolean toInclusive) {
+        List<T> matches = new ArrayList<>();
+        for (T item : items) {
+            double value = field.applyAsDouble(item);
+            if ((fromInclusive ? value >= from : value > from) && (toInclusive ? value <= to : value < to)) {
+                matches.add(item);
             }
         }
-        return allProducts.size() + 1;
+        return matches;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package Project.Model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * InventoryEvent is a Java Flight Recorder event covering one inventory mutation or search.
+ * Fields are only filled in when the event will be recorded, so with recording off an operation
+ * pays for little more than the event's begin call.
+ * @author Diar Shabani
+ */
+@Name("Project.InventoryOperation")
+@Label("Inventory Operation")
+@Category({"Inventory", "Model"})
+@Description("A change to or search of the parts and products")
+public class InventoryEvent extends Event {
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Rows")
+    @Description("The number of parts or products in the inventory afterwards")
+    private int rows;
+
+    @Label("Result Size")
+    @Description("The number of items added, changed, removed or found")
+    private int resultSize;
+
+    /**
+     * Records the event if recording is on and it passes the configured threshold
+     * @param operation The name of the Inventory method, or of the kind of search for live searches
+     * @param rows The number of parts or products in the inventory afterwards
+     * @param resultSize The number of items added, changed, removed or found
+     */
+    void finish(String operation, int rows, int resultSize) {
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.rows = rows;
+            this.resultSize = resultSize;
+            commit();
+        }
+    }
+}
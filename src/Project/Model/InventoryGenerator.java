@@ -0,0 +1,420 @@
+package Project.Model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * InventoryGenerator produces a synthetic inventory of any size for load and scale testing.
+ * The same seed and settings always produce the same parts and products.
+ * <p>
+ * Names are built from a generated vocabulary whose words are drawn with Zipfian frequencies, so a
+ * few words are very common and most are rare, as in a real catalogue; a share of names also start
+ * with one of a small set of category prefixes. Prices follow a log-normal distribution around a
+ * median. Each product uses a random number of parts, chosen with a Zipfian skew so a few parts
+ * are shared by many products.
+ * <p>
+ * Rows are produced one at a time and handed to the caller, so generating millions of rows
+ * holds no more than the current row. Part IDs run from 1 to the part count and product IDs
+ * from 1 to the product count.
+ * @author Diar Shabani
+ */
+public class InventoryGenerator {
+    private static final String[] SYLLABLES = {
+            "ba", "ko", "ri", "ten", "mo", "la", "sun", "ver", "dal", "pi", "zo", "ne", "cor", "fa",
+            "lin", "tu", "gra", "se", "mar", "vo", "quin", "del", "ho", "ra", "bel", "tis", "wen", "ox"
+    };
+    private static final String[] PREFIXES = {
+            "Kitchen", "Bath", "Living Room", "Bedroom", "Garden", "Office", "Deluxe", "Compact",
+            "Heavy Duty", "Classic", "Outdoor", "Travel", "Premium", "Basic", "Kids", "Pro"
+    };
+    private static final int BATCH_SIZE = 10_000;
+    private static final long PRODUCT_STREAM = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private int partCount = 10_000;
+    private int productCount = 1_000;
+    private double inHouseShare = 0.5;
+    private int vocabularySize = 5_000;
+    private double wordSkew = 1.1;
+    private double prefixShare = 0.3;
+    private double priceMedian = 15.0;
+    private double priceSpread = 1.0;
+    private int maxStock = 500;
+    private int minPartsPerProduct = 1;
+    private int maxPartsPerProduct = 6;
+    private double partSkew = 0.8;
+
+    /**
+     * Constructs a generator with the default settings: ten thousand parts and a thousand products
+     * @param seed The seed every row is derived from
+     */
+    public InventoryGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param partCount The number of parts to generate
+     */
+    public void setPartCount(int partCount) {
+        this.partCount = Math.max(0, partCount);
+    }
+
+    /**
+     * @param productCount The number of products to generate
+     */
+    public void setProductCount(int productCount) {
+        this.productCount = Math.max(0, productCount);
+    }
+
+    /**
+     * @param inHouseShare The fraction of parts made in house, from 0 to 1; the rest are outsourced
+     */
+    public void setInHouseShare(double inHouseShare) {
+        this.inHouseShare = inHouseShare;
+    }
+
+    /**
+     * @param vocabularySize The number of distinct words names are built from
+     */
+    public void setVocabularySize(int vocabularySize) {
+        this.vocabularySize = Math.max(1, vocabularySize);
+    }
+
+    /**
+     * @param wordSkew The Zipf exponent for word frequencies; 0 makes every word equally likely
+     */
+    public void setWordSkew(double wordSkew) {
+        this.wordSkew = wordSkew;
+    }
+
+    /**
+     * @param prefixShare The fraction of names that start with a shared category prefix, from 0 to 1
+     */
+    public void setPrefixShare(double prefixShare) {
+        this.prefixShare = prefixShare;
+    }
+
+    /**
+     * Sets the log-normal price distribution
+     * @param median The median price
+     * @param spread The standard deviation of the logarithm of the price
+     */
+    public void setPrices(double median, double spread) {
+        this.priceMedian = median;
+        this.priceSpread = spread;
+    }
+
+    /**
+     * @param maxStock The largest maximum stock a part or product can have
+     */
+    public void setMaxStock(int maxStock) {
+        this.maxStock = Math.max(2, maxStock);
+    }
+
+    /**
+     * Sets how many parts each product uses
+     * @param min The fewest parts a product uses
+     * @param max The most parts a product uses
+     */
+    public void setPartsPerProduct(int min, int max) {
+        this.minPartsPerProduct = Math.max(0, min);
+        this.maxPartsPerProduct = Math.max(this.minPartsPerProduct, max);
+    }
+
+    /**
+     * @param partSkew The Zipf exponent for how often each part is used by products; 0 spreads use evenly
+     */
+    public void setPartSkew(double partSkew) {
+        this.partSkew = partSkew;
+    }
+
+    /**
+     * Adds the generated parts and then the generated products to an inventory, a batch at a time
+     * so the tables see one change per batch. The inventory should not already hold parts or
+     * products with the generated IDs.
+     * @param inventory The inventory to fill
+     */
+    public void generate(Inventory inventory) {
+        List<Part> parts = new ArrayList<>(BATCH_SIZE);
+        forEachPart(part -> {
+            parts.add(part);
+            if (parts.size() == BATCH_SIZE) {
+                inventory.addParts(parts);
+                parts.clear();
+            }
+        });
+        inventory.addParts(parts);
+
+        List<Product> products = new ArrayList<>(BATCH_SIZE);
+        forEachProduct(inventory::lookupPart, product -> {
+            products.add(product);
+            if (products.size() == BATCH_SIZE) {
+                inventory.addProducts(products);
+                products.clear();
+            }
+        });
+        inventory.addProducts(products);
+    }
+
+    /**
+     * Generates every part in ID order
+     * @param consumer Receives each part
+     */
+    public void forEachPart(Consumer<Part> consumer) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Names names = new Names(random);
+        ZipfSampler companies = new ZipfSampler(200, 1.0);
+        for (int id = 1; id <= partCount; id++) {
+            String name = names.next();
+            double price = price(random);
+            int[] levels = levels(random);
+            if (random.nextDouble() < inHouseShare) {
+                consumer.accept(new InHouse(id, name, price, levels[0], levels[1], levels[2], random.nextInt(1, 1000)));
+            } else {
+                consumer.accept(new Outsourced(id, name, price, levels[0], levels[1], levels[2],
+                        "Supplier " + companies.sample(random)));
+            }
+        }
+    }
+
+    /**
+     * Generates every product in ID order. Products are generated from their own random stream, so
+     * they are the same whether or not the parts were generated first.
+     * @param lookupPart Finds a part by ID; parts it does not find are left out of the product
+     * @param consumer Receives each product
+     */
+    public void forEachProduct(IntFunction<Part> lookupPart, Consumer<Product> consumer) {
+        products((product, partIds, count) -> {
+            for (int i = 0; i < count; i++) {
+                Part part = lookupPart.apply(partIds[i]);
+                if (part != null) {
+                    product.addAssociatedPart(part);
+                }
+            }
+            consumer.accept(product);
+        });
+    }
+
+    /**
+     * Writes the generated parts and products as CSV in the form read by {@link InventoryImporter},
+     * one row at a time
+     * @param out Where to write the CSV
+     * @throws IOException If the CSV cannot be written
+     */
+    public void writeCsv(Writer out) throws IOException {
+        out.write("type,id,name,price,stock,min,max,extra\n");
+        StringBuilder row = new StringBuilder(128);
+        try {
+            forEachPart(part -> {
+                row.setLength(0);
+                row.append(part instanceof InHouse ? "InHouse" : "Outsourced").append(',').append(part.getId()).append(',')
+                        .append(part.getName()).append(',').append(part.getPrice()).append(',').append(part.getStock()).append(',')
+                        .append(part.getMin()).append(',').append(part.getMax()).append(',')
+                        .append(part instanceof InHouse ? String.valueOf(((InHouse) part).getMachineId()) : ((Outsourced) part).getCompanyName())
+                        .append('\n');
+                write(out, row);
+            });
+
+            products((product, partIds, count) -> {
+                row.setLength(0);
+                row.append("Product,").append(product.getId()).append(',').append(product.getName()).append(',')
+                        .append(product.getPrice()).append(',').append(product.getStock()).append(',')
+                        .append(product.getMin()).append(',').append(product.getMax()).append(',');
+                for (int i = 0; i < count; i++) {
+                    row.append(i > 0 ? ";" : "").append(partIds[i]);
+                }
+                write(out, row.append('\n'));
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    /**
+     * Generates every product in ID order from the product random stream
+     */
+    private void products(ProductSink sink) {
+        SplittableRandom random = new SplittableRandom(seed ^ PRODUCT_STREAM);
+        Names names = new Names(random);
+        PartPicker picker = new PartPicker();
+        int[] partIds = new int[maxPartsPerProduct];
+        for (int id = 1; id <= productCount; id++) {
+            int[] levels = levels(random);
+            Product product = new Product(id, names.next() + " Set", price(random) * 4, levels[0], levels[1], levels[2]);
+            int count = partCount == 0 ? 0 : random.nextInt(minPartsPerProduct, maxPartsPerProduct + 1);
+            for (int i = 0; i < count; i++) {
+                partIds[i] = picker.pick(random);
+            }
+            sink.accept(product, partIds, count);
+        }
+    }
+
+    private static void write(Writer out, CharSequence row) {
+        try {
+            out.append(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Draws a log-normal price rounded to the cent
+     */
+    private double price(SplittableRandom random) {
+        double price = priceMedian * Math.exp(priceSpread * random.nextGaussian());
+        return Math.max(0.01, Math.round(price * 100) / 100.0);
+    }
+
+    /**
+     * Draws a stock, min and max with min &lt;= stock &lt;= max
+     */
+    private int[] levels(SplittableRandom random) {
+        int max = random.nextInt(2, maxStock + 1);
+        int min = random.nextInt(0, max / 2 + 1);
+        int stock = random.nextInt(min, max + 1);
+        return new int[]{stock, min, max};
+    }
+
+    /**
+     * Builds names from a Zipf-weighted vocabulary, some behind a shared category prefix
+     */
+    private final class Names {
+        private final SplittableRandom random;
+        private final String[] vocabulary;
+        private final ZipfSampler words;
+        private final ZipfSampler prefixes;
+        private final StringBuilder name = new StringBuilder(48);
+
+        Names(SplittableRandom random) {
+            this.random = random;
+            SplittableRandom wordRandom = new SplittableRandom(seed + 1);
+            vocabulary = new String[vocabularySize];
+            for (int i = 0; i < vocabulary.length; i++) {
+                StringBuilder word = new StringBuilder();
+                int syllables = wordRandom.nextInt(1, 4);
+                for (int s = 0; s < syllables; s++) {
+                    word.append(SYLLABLES[wordRandom.nextInt(SYLLABLES.length)]);
+                }
+                word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+                vocabulary[i] = word.toString();
+            }
+            words = new ZipfSampler(vocabulary.length, wordSkew);
+            prefixes = new ZipfSampler(PREFIXES.length, 1.0);
+        }
+
+        String next() {
+            name.setLength(0);
+            if (random.nextDouble() < prefixShare) {
+                name.append(PREFIXES[prefixes.sample(random) - 1]).append(' ');
+            }
+            int count = random.nextInt(1, 3);
+            for (int i = 0; i < count; i++) {
+                name.append(i > 0 ? " " : "").append(vocabulary[words.sample(random) - 1]);
+            }
+            return name.toString();
+        }
+    }
+
+    /**
+     * Chooses part IDs for products with a Zipfian skew. Ranks are spread over the ID range with a
+     * stride coprime to the part count, so the most used parts are not simply the lowest IDs.
+     */
+    private final class PartPicker {
+        private final ZipfSampler ranks = new ZipfSampler(Math.max(1, partCount), partSkew);
+        private final long stride;
+
+        PartPicker() {
+            long candidate = 2_654_435_761L % Math.max(1, partCount);
+            while (partCount > 1 && gcd(Math.max(1, candidate), partCount) != 1) {
+                candidate++;
+            }
+            stride = Math.max(1, candidate);
+        }
+
+        int pick(SplittableRandom random) {
+            return (int) ((ranks.sample(random) - 1) * stride % partCount) + 1;
+        }
+
+        private long gcd(long a, long b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
+
+    /**
+     * Samples ranks 1 to n from a Zipf distribution in constant time and memory, using
+     * rejection-inversion (Hormann and Derflinger, 1996)
+     */
+    private static final class ZipfSampler {
+        private final int n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        ZipfSampler(int n, double exponent) {
+            this.n = n;
+            this.exponent = exponent;
+            hIntegralX1 = hIntegral(1.5) - 1;
+            hIntegralN = hIntegral(n + 0.5);
+            s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        int sample(SplittableRandom random) {
+            while (true) {
+                double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                int k = (int) (x + 0.5);
+                if (k < 1) {
+                    k = 1;
+                } else if (k > n) {
+                    k = n;
+                }
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1 - exponent) * logX) * logX;
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = Math.max(-1, x * (1 - exponent));
+            return Math.exp(helper1(t) * x);
+        }
+
+        /**
+         * log(1 + x) / x, accurate near 0
+         */
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+        }
+
+        /**
+         * (exp(x) - 1) / x, accurate near 0
+         */
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+        }
+    }
+
+    /**
+     * Receives a generated product, without parts, and the IDs of the parts it uses
+     */
+    private interface ProductSink {
+        void accept(Product product, int[] partIds, int count);
+    }
+}
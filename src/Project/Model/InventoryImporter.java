@@ -0,0 +1,656 @@
+package Project.Model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * InventoryImporter streams parts and products from a supplier catalogue into an inventory.
+ * Lines are read a batch at a time, so memory use is bounded by the batch size rather than the
+ * file size. Each batch is parsed and validated in parallel and then added with
+ * {@link Inventory#addParts} and {@link Inventory#addProducts}, so table listeners see one change
+ * per batch instead of one per row.
+ * <p>
+ * Two formats are read, one record per line:
+ * <ul>
+ *     <li>CSV: {@code type,id,name,price,stock,min,max,extra}, where type is InHouse, Outsourced
+ *     or Product and extra is the machine ID, the company name, or the product's associated part
+ *     IDs separated by semicolons. A header line starting with "type" is skipped.</li>
+ *     <li>JSON Lines: one flat object per line with the keys type, id, name, price, stock, min,
+ *     max and machineId, companyName or parts (an array of part IDs).</li>
+ * </ul>
+ * Rows are validated with the same rules as the Add Part and Add Product forms. Products can only
+ * use parts that are already in the inventory or appear earlier in the file.
+ * Must be called on the thread that owns the inventory.
+ * @author Diar Shabani
+ */
+public class InventoryImporter {
+    /**
+     * The number of lines read, validated and added together when no batch size is given
+     */
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+    /**
+     * The most rejected rows kept in a report; any beyond this are only counted
+     */
+    public static final int MAX_REPORTED_REJECTS = 1_000;
+
+    private final Inventory inventory;
+    private final int batchSize;
+
+    /**
+     * Constructs an importer with the default batch size
+     * @param inventory The inventory to add to
+     */
+    public InventoryImporter(Inventory inventory) {
+        this(inventory, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs an importer
+     * @param inventory The inventory to add to
+     * @param batchSize The number of lines read, validated and added together
+     */
+    public InventoryImporter(Inventory inventory, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.inventory = inventory;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports a file, choosing the format from its extension: .json, .jsonl and .ndjson
+     * are read as JSON Lines, anything else as CSV
+     * @param file The catalogue file
+     * @return What was imported and what was rejected
+     * @throws IOException If the file cannot be read
+     */
+    public Report importFile(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean json = name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson");
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return json ? importJsonLines(reader) : importCsv(reader);
+        }
+    }
+
+    /**
+     * Imports CSV records
+     * @param reader The CSV text
+     * @return What was imported and what was rejected
+     * @throws IOException If the text cannot be read
+     */
+    public Report importCsv(Reader reader) throws IOException {
+        return run(reader, false);
+    }
+
+    /**
+     * Imports JSON Lines records
+     * @param reader The JSON Lines text
+     * @return What was imported and what was rejected
+     * @throws IOException If the text cannot be read
+     */
+    public Report importJsonLines(Reader reader) throws IOException {
+        return run(reader, true);
+    }
+
+    private Report run(Reader source, boolean json) throws IOException {
+        Report report = new Report();
+        long start = System.nanoTime();
+        BufferedReader reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source, 1 << 16);
+        List<String> lines = new ArrayList<>(batchSize);
+        long firstLine = 1;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && !json && line.trim().toLowerCase(Locale.ROOT).startsWith("type")) {
+                firstLine = 2;
+                continue;
+            }
+            lines.add(line);
+            if (lines.size() == batchSize) {
+                insert(parse(lines, json), firstLine, report);
+                firstLine = lineNumber + 1;
+                lines.clear();
+            }
+        }
+        if (!lines.isEmpty()) {
+            insert(parse(lines, json), firstLine, report);
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Parses and validates a batch of lines in parallel
+     */
+    private static Row[] parse(List<String> lines, boolean json) {
+        return IntStream.range(0, lines.size()).parallel()
+                .mapToObj(i -> parseRow(lines.get(i), json))
+                .toArray(Row[]::new);
+    }
+
+    /**
+     * Adds a validated batch, checking IDs against the inventory and earlier rows
+     */
+    private void insert(Row[] rows, long firstLine, Report report) {
+        List<Part> parts = new ArrayList<>();
+        Set<Integer> batchPartIds = new HashSet<>();
+        for (int i = 0; i < rows.length; i++) {
+            Row row = rows[i];
+            if (row == null || row.part == null) {
+                continue;
+            }
+            int id = row.part.getId();
+            if (inventory.lookupPart(id) != null || !batchPartIds.add(id)) {
+                rows[i] = Row.reject("Duplicate part ID " + id);
+            } else {
+                parts.add(row.part);
+            }
+        }
+        inventory.addParts(parts);
+        report.parts += parts.size();
+
+        List<Product> products = new ArrayList<>();
+        Set<Integer> batchProductIds = new HashSet<>();
+        for (int i = 0; i < rows.length; i++) {
+            Row row = rows[i];
+            if (row == null || row.product == null) {
+                continue;
+            }
+            int id = row.product.getId();
+            if (inventory.lookupProduct(id) != null || !batchProductIds.add(id)) {
+                rows[i] = Row.reject("Duplicate product ID " + id);
+                continue;
+            }
+            String missing = null;
+            for (int partId : row.partIds) {
+                Part part = inventory.lookupPart(partId);
+                if (part == null) {
+                    missing = "Unknown part ID " + partId;
+                    break;
+                }
+                row.product.addAssociatedPart(part);
+            }
+            if (missing != null) {
+                rows[i] = Row.reject(missing);
+            } else {
+                products.add(row.product);
+            }
+        }
+        inventory.addProducts(products);
+        report.products += products.size();
+
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] != null && rows[i].reason != null) {
+                report.reject(firstLine + i, rows[i].reason);
+            }
+        }
+    }
+
+    /**
+     * Parses and validates a single part written as a JSON object, in the same form as a line of a
+     * JSON Lines import
+     * @param json The JSON object
+     * @return A new InHouse or Outsourced part
+     * @throws IllegalArgumentException If the record is malformed, invalid or not a part
+     */
+    public static Part parsePart(String json) {
+        Row row = parseRow(json, true);
+        if (row == null || row.reason != null) {
+            throw new IllegalArgumentException(row == null ? "Empty record" : row.reason);
+        }
+        if (row.part == null) {
+            throw new IllegalArgumentException("Record is not a part");
+        }
+        return row.part;
+    }
+
+    /**
+     * Parses and validates a single product written as a JSON object, in the same form as a line
+     * of a JSON Lines import, and links it to its associated parts
+     * @param json The JSON object
+     * @param lookupPart Finds a part by ID, returning null if there is none
+     * @return A new product with its associated parts
+     * @throws IllegalArgumentException If the record is malformed, invalid, not a product or names an unknown part
+     */
+    public static Product parseProduct(String json, IntFunction<Part> lookupPart) {
+        Row row = parseRow(json, true);
+        if (row == null || row.reason != null) {
+            throw new IllegalArgumentException(row == null ? "Empty record" : row.reason);
+        }
+        if (row.product == null) {
+            throw new IllegalArgumentException("Record is not a product");
+        }
+        for (int partId : row.partIds) {
+            Part part = lookupPart.apply(partId);
+            if (part == null) {
+                throw new IllegalArgumentException("Unknown part ID " + partId);
+            }
+            row.product.addAssociatedPart(part);
+        }
+        return row.product;
+    }
+
+    /**
+     * Parses and validates one line
+     * @return The parsed row, a rejected row, or null for a blank line
+     */
+    private static Row parseRow(String line, boolean json) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            Map<String, String> fields = json ? parseJson(line) : parseCsv(line);
+            return validate(fields);
+        } catch (IllegalArgumentException e) {
+            return Row.reject(e.getMessage());
+        }
+    }
+
+    private static Row validate(Map<String, String> fields) {
+        String type = required(fields, "type").toLowerCase(Locale.ROOT);
+        int id = parseInt(fields, "id");
+        String name = required(fields, "name");
+        double price = parseDouble(fields, "price");
+        int stock = parseInt(fields, "stock");
+        int min = parseInt(fields, "min");
+        int max = parseInt(fields, "max");
+
+        if (price < 0) {
+            return Row.reject("Price cannot be negative");
+        }
+        if (stock < 0) {
+            return Row.reject("Stock cannot be negative");
+        }
+        if (min < 0 || max < 0) {
+            return Row.reject("Min and Max values cannot be negative");
+        }
+        if (min > max) {
+            return Row.reject("Min value cannot be greater than Max value");
+        }
+        if (stock < min) {
+            return Row.reject("Stock cannot be less than minimum storage");
+        }
+        if (stock > max) {
+            return Row.reject("Stock cannot be more than maximum storage");
+        }
+
+        switch (type) {
+            case "inhouse": {
+                int machineId = parseInt(fields, "machineId");
+                if (machineId < 0) {
+                    return Row.reject("Machine ID cannot be negative");
+                }
+                return Row.part(new InHouse(id, name, price, stock, min, max, machineId));
+            }
+            case "outsourced":
+                return Row.part(new Outsourced(id, name, price, stock, min, max, required(fields, "companyName")));
+            case "product": {
+                String parts = fields.getOrDefault("parts", "").trim();
+                List<Integer> partIds = new ArrayList<>();
+                if (!parts.isEmpty()) {
+                    for (String partId : parts.split(";")) {
+                        try {
+                            partIds.add(Integer.parseInt(partId.trim()));
+                        } catch (NumberFormatException e) {
+                            return Row.reject("Invalid part ID " + partId.trim());
+                        }
+                    }
+                }
+                return Row.product(new Product(id, name, price, stock, min, max), partIds);
+            }
+            default:
+                return Row.reject("Unknown type " + type);
+        }
+    }
+
+    private static String required(Map<String, String> fields, String key) {
+        String value = fields.get(key);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(key + " cannot be empty");
+        }
+        return value;
+    }
+
+    private static int parseInt(Map<String, String> fields, String key) {
+        try {
+            return Integer.parseInt(required(fields, key).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a whole number");
+        }
+    }
+
+    private static double parseDouble(Map<String, String> fields, String key) {
+        try {
+            return Double.parseDouble(required(fields, key).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a numeric value");
+        }
+    }
+
+    /**
+     * Splits a CSV line into named fields. Fields may be quoted, with "" standing for a quote.
+     */
+    private static Map<String, String> parseCsv(String line) {
+        List<String> values = new ArrayList<>(8);
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(value.toString());
+        if (values.size() != 8) {
+            throw new IllegalArgumentException("Expected 8 fields but found " + values.size());
+        }
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("type", values.get(0).trim());
+        fields.put("id", values.get(1));
+        fields.put("name", values.get(2));
+        fields.put("price", values.get(3));
+        fields.put("stock", values.get(4));
+        fields.put("min", values.get(5));
+        fields.put("max", values.get(6));
+        String type = values.get(0).trim().toLowerCase(Locale.ROOT);
+        fields.put(type.equals("inhouse") ? "machineId" : type.equals("product") ? "parts" : "companyName", values.get(7));
+        return fields;
+    }
+
+    /**
+     * Reads a flat JSON object whose values are strings, numbers, booleans, null
+     * or arrays of numbers. Arrays are returned joined with semicolons.
+     */
+    private static Map<String, String> parseJson(String line) {
+        Map<String, String> fields = new HashMap<>();
+        JsonCursor in = new JsonCursor(line);
+        in.expect('{');
+        if (in.peek() == '}') {
+            in.next();
+            return fields;
+        }
+        while (true) {
+            String key = in.string();
+            in.expect(':');
+            char c = in.peek();
+            String value;
+            if (c == '"') {
+                value = in.string();
+            } else if (c == '[') {
+                in.next();
+                StringBuilder items = new StringBuilder();
+                if (in.peek() != ']') {
+                    while (true) {
+                        if (items.length() > 0) {
+                            items.append(';');
+                        }
+                        items.append(in.literal());
+                        if (in.peek() == ',') {
+                            in.next();
+                        } else {
+                            break;
+                        }
+                    }
+                }
+                in.expect(']');
+                value = items.toString();
+            } else {
+                value = in.literal();
+                if (value.equals("null")) {
+                    value = null;
+                }
+            }
+            if (value != null) {
+                fields.put(key, value);
+            }
+            char end = in.next();
+            if (end == '}') {
+                return fields;
+            }
+            if (end != ',') {
+                throw new IllegalArgumentException("Malformed JSON object");
+            }
+        }
+    }
+
+    /**
+     * Walks a single line of JSON
+     */
+    private static final class JsonCursor {
+        private final String text;
+        private int at;
+
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        char peek() {
+            while (at < text.length() && Character.isWhitespace(text.charAt(at))) {
+                at++;
+            }
+            if (at >= text.length()) {
+                throw new IllegalArgumentException("Unexpected end of JSON");
+            }
+            return text.charAt(at);
+        }
+
+        char next() {
+            char c = peek();
+            at++;
+            return c;
+        }
+
+        void expect(char c) {
+            if (next() != c) {
+                throw new IllegalArgumentException("Malformed JSON, expected " + c);
+            }
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (at < text.length()) {
+                char c = text.charAt(at++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c == '\\' && at < text.length()) {
+                    char escaped = text.charAt(at++);
+                    switch (escaped) {
+                        case 'n': value.append('\n'); break;
+                        case 't': value.append('\t'); break;
+                        case 'r': value.append('\r'); break;
+                        case 'b': value.append('\b'); break;
+                        case 'f': value.append('\f'); break;
+                        case 'u':
+                            if (at + 4 > text.length()) {
+                                throw new IllegalArgumentException("Malformed JSON escape");
+                            }
+                            value.append((char) Integer.parseInt(text.substring(at, at + 4), 16));
+                            at += 4;
+                            break;
+                        default: value.append(escaped);
+                    }
+                } else {
+                    value.append(c);
+                }
+            }
+            throw new IllegalArgumentException("Unterminated JSON string");
+        }
+
+        String literal() {
+            peek();
+            int start = at;
+            while (at < text.length() && ",}] \t".indexOf(text.charAt(at)) < 0) {
+                at++;
+            }
+            if (start == at) {
+                throw new IllegalArgumentException("Malformed JSON value");
+            }
+            return text.substring(start, at);
+        }
+    }
+
+    /**
+     * The outcome of parsing one line: a part, a product with the IDs of its parts, or a reason it was rejected
+     */
+    private static final class Row {
+        private Part part;
+        private Product product;
+        private List<Integer> partIds;
+        private String reason;
+
+        static Row part(Part part) {
+            Row row = new Row();
+            row.part = part;
+            return row;
+        }
+
+        static Row product(Product product, List<Integer> partIds) {
+            Row row = new Row();
+            row.product = product;
+            row.partIds = partIds;
+            return row;
+        }
+
+        static Row reject(String reason) {
+            Row row = new Row();
+            row.reason = reason;
+            return row;
+        }
+    }
+
+    /**
+     * A line that could not be imported
+     */
+    public static final class Reject {
+        private final long line;
+        private final String reason;
+
+        Reject(long line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+
+        /**
+         * @return The line number in the file, starting at 1
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * @return Why the line was rejected
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + reason;
+        }
+    }
+
+    /**
+     * Report summarizes an import: how many parts and products were added, which lines were
+     * rejected and why, and how fast the rows went in
+     */
+    public static final class Report {
+        private long parts;
+        private long products;
+        private long rejectCount;
+        private final List<Reject> rejects = new ArrayList<>();
+        private long elapsedNanos;
+
+        private void reject(long line, String reason) {
+            rejectCount++;
+            if (rejects.size() < MAX_REPORTED_REJECTS) {
+                rejects.add(new Reject(line, reason));
+            }
+        }
+
+        /**
+         * @return The number of parts added
+         */
+        public long getParts() {
+            return parts;
+        }
+
+        /**
+         * @return The number of products added
+         */
+        public long getProducts() {
+            return products;
+        }
+
+        /**
+         * @return The number of rejected lines
+         */
+        public long getRejectCount() {
+            return rejectCount;
+        }
+
+        /**
+         * @return The first rejected lines, up to {@link #MAX_REPORTED_REJECTS}
+         */
+        public List<Reject> getRejects() {
+            return Collections.unmodifiableList(rejects);
+        }
+
+        /**
+         * @return How long the import took, in milliseconds
+         */
+        public double getElapsedMillis() {
+            return elapsedNanos / 1_000_000.0;
+        }
+
+        /**
+         * @return Lines processed per second, accepted or not
+         */
+        public double getRowsPerSecond() {
+            long rows = parts + products + rejectCount;
+            return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Imported %d parts and %d products, rejected %d rows in %.1f ms (%.0f rows/s)",
+                    parts, products, rejectCount, getElapsedMillis(), getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,596 @@
+package Project.Model;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * InventoryLog is a write-ahead log of inventory mutations. Each add, update, delete, stock
+ * movement and change to a product's associated parts is appended as a compact binary record.
+ * Stock movements are logged as deltas, so movements made concurrently on different threads
+ * replay to the same total whatever order their records were queued in. A background thread
+ * writes whatever has queued up in one write and one fsync (group commit), so edits never wait
+ * for the disk. On startup {@link #replay(Inventory)} rebuilds an inventory from the log.
+ * <p>
+ * Each record is framed as its length, a CRC32 of its body and the body. Replay stops at the
+ * first incomplete or corrupt record, which is what a crash in the middle of a write leaves
+ * behind, and truncates the file there. A length that runs past the end of the file is
+ * treated the same way, so a corrupt header is never trusted to size an allocation.
+ * Names are written as a length followed by their UTF-8 bytes rather than with
+ * {@link DataOutputStream#writeUTF(String)}, which cannot encode more than 64 KB and would fail
+ * only after the inventory had already been changed.
+ * <p>
+ * When the inventory is also saved as an {@link InventorySnapshot}, {@link #checkpoint(long)}
+ * empties the log and starts it with a record naming the snapshot, so a log left over from
+ * before the snapshot is never applied on top of it.
+ * @author Diar Shabani
+ */
+public class InventoryLog implements AutoCloseable {
+    private static final byte PART_ADDED = 1;
+    private static final byte PART_UPDATED = 2;
+    private static final byte PART_DELETED = 3;
+    private static final byte PRODUCT_ADDED = 4;
+    private static final byte PRODUCT_UPDATED = 5;
+    private static final byte PRODUCT_DELETED = 6;
+    private static final byte PART_ASSOCIATED = 7;
+    private static final byte PART_DISSOCIATED = 8;
+    private static final byte CHECKPOINT = 9;
+    private static final byte PART_STOCK = 10;
+    private static final byte PRODUCT_STOCK = 11;
+
+    /**
+     * The largest record body replay will read. A length beyond it, or beyond the end of the
+     * file, can only come from a corrupt header.
+     */
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    private static final byte IN_HOUSE = 0;
+    private static final byte OUTSOURCED = 1;
+
+    private final FileChannel channel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition queued = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private List<byte[]> pending = new ArrayList<>();
+    private long appendedCount;
+    private long durableCount;
+    private boolean closed;
+    private IOException failure;
+    private final Thread writer;
+
+    private InventoryLog(FileChannel channel) {
+        this.channel = channel;
+        this.writer = new Thread(this::writeLoop, "inventory-log");
+        writer.setDaemon(true);
+    }
+
+    /**
+     * Opens a log file, creating it if it does not exist
+     * @param file The log file
+     * @return The open log, not yet attached to an inventory
+     * @throws IOException If the file cannot be opened
+     */
+    public static InventoryLog open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        InventoryLog log = new InventoryLog(channel);
+        log.writer.start();
+        return log;
+    }
+
+    /**
+     * Applies every record in the log to an inventory, then positions the log for appending.
+     * The inventory must not have this log attached while it is replayed.
+     * @param inventory The inventory to rebuild, normally empty
+     * @return The number of records replayed
+     * @throws IOException If the file cannot be read
+     */
+    public int replay(Inventory inventory) throws IOException {
+        return replay(inventory, 0);
+    }
+
+    /**
+     * Applies the records written since a snapshot to an inventory restored from that snapshot.
+     * If the log does not begin with the snapshot's checkpoint it predates the snapshot, whose
+     * contents already include it, so it is discarded instead.
+     * @param inventory The inventory restored from the snapshot
+     * @param checkpoint The snapshot's checkpoint identifier, or 0 to replay the whole log
+     * @return The number of records replayed
+     * @throws IOException If the file cannot be read
+     */
+    public int replay(Inventory inventory, long checkpoint) throws IOException {
+        int records = 0;
+        lock.lock();
+        try {
+            channel.position(0);
+            CountingInput counter = new CountingInput(Channels.newInputStream(channel));
+            DataInputStream in = new DataInputStream(counter);
+            long good = 0;
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] body;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES || length > channel.size() - counter.count) {
+                        break;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                    crc.reset();
+                    crc.update(body);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                if (records == 0 && checkpoint != 0 && !isCheckpoint(body, checkpoint)) {
+                    break;
+                }
+                apply(inventory, new DataInputStream(new ByteArrayInputStream(body)));
+                good = counter.count;
+                records++;
+            }
+            channel.truncate(good);
+            channel.position(good);
+        } finally {
+            lock.unlock();
+        }
+        if (checkpoint != 0 && records == 0) {
+            append(out -> {
+                out.writeByte(CHECKPOINT);
+                out.writeLong(checkpoint);
+            });
+        }
+        return records;
+    }
+
+    private static boolean isCheckpoint(byte[] body, long checkpoint) {
+        return body.length == 1 + Long.BYTES && body[0] == CHECKPOINT && ByteBuffer.wrap(body, 1, Long.BYTES).getLong() == checkpoint;
+    }
+
+    /**
+     * Empties the log once a snapshot holding everything in it has been written,
+     * and starts the log again with a record naming that snapshot
+     * @param checkpoint The snapshot's checkpoint identifier
+     * @throws IOException If the log cannot be flushed or truncated
+     */
+    public void checkpoint(long checkpoint) throws IOException {
+        flush();
+        lock.lock();
+        try {
+            channel.truncate(0);
+            channel.position(0);
+        } finally {
+            lock.unlock();
+        }
+        append(out -> {
+            out.writeByte(CHECKPOINT);
+            out.writeLong(checkpoint);
+        });
+        flush();
+    }
+
+    /**
+     * Blocks until every record appended so far has been written and forced to disk
+     * @throws IOException If the background writer failed
+     */
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            long target = appendedCount;
+            while (durableCount < target && failure == null) {
+                synced.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes outstanding records and closes the file
+     * @throws IOException If the last records could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            lock.lock();
+            try {
+                closed = true;
+                queued.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    void partAdded(Part part) {
+        append(out -> {
+            out.writeByte(PART_ADDED);
+            writePart(out, part);
+        });
+    }
+
+    void partUpdated(int oldId, Part part) {
+        append(out -> {
+            out.writeByte(PART_UPDATED);
+            out.writeInt(oldId);
+            writePart(out, part);
+        });
+    }
+
+    void partDeleted(Part part) {
+        append(out -> {
+            out.writeByte(PART_DELETED);
+            out.writeInt(part.getId());
+        });
+    }
+
+    void productAdded(Product product) {
+        append(out -> {
+            out.writeByte(PRODUCT_ADDED);
+            writeProduct(out, product);
+        });
+    }
+
+    void productUpdated(int oldId, Product product) {
+        append(out -> {
+            out.writeByte(PRODUCT_UPDATED);
+            out.writeInt(oldId);
+            writeProduct(out, product);
+        });
+    }
+
+    void productDeleted(Product product) {
+        append(out -> {
+            out.writeByte(PRODUCT_DELETED);
+            out.writeInt(product.getId());
+        });
+    }
+
+    void partStockChanged(Part part, int delta) {
+        append(out -> {
+            out.writeByte(PART_STOCK);
+            out.writeInt(part.getId());
+            out.writeInt(delta);
+        });
+    }
+
+    void productStockChanged(Product product, int delta) {
+        append(out -> {
+            out.writeByte(PRODUCT_STOCK);
+            out.writeInt(product.getId());
+            out.writeInt(delta);
+        });
+    }
+
+    void partAssociated(Product product, Part part) {
+        append(out -> {
+            out.writeByte(PART_ASSOCIATED);
+            out.writeInt(product.getId());
+            out.writeInt(part.getId());
+        });
+    }
+
+    void partDissociated(Product product, Part part) {
+        append(out -> {
+            out.writeByte(PART_DISSOCIATED);
+            out.writeInt(product.getId());
+            out.writeInt(part.getId());
+        });
+    }
+
+    /**
+     * Encodes a record and queues it for the background writer
+     */
+    private void append(RecordWriter record) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeInt(0);
+            record.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] frame = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(frame, 8, frame.length - 8);
+        ByteBuffer.wrap(frame).putInt(frame.length - 8).putInt((int) crc.getValue());
+
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new UncheckedIOException("Inventory log is no longer writable", failure);
+            }
+            if (closed) {
+                throw new IllegalStateException("Inventory log is closed");
+            }
+            pending.add(frame);
+            appendedCount++;
+            queued.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes everything queued since the last batch, writes it in one go and forces it to disk
+     */
+    private void writeLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        while (true) {
+            List<byte[]> batch;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && !closed) {
+                    queued.awaitUninterruptibly();
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                int size = 0;
+                for (byte[] frame : batch) {
+                    size += frame.length;
+                }
+                if (buffer.capacity() < size) {
+                    buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(size) << 1);
+                }
+                buffer.clear();
+                for (byte[] frame : batch) {
+                    buffer.put(frame);
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    synced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                durableCount += batch.size();
+                synced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static void apply(Inventory inventory, DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case PART_ADDED:
+                inventory.addPart(readPart(in));
+                break;
+            case PART_UPDATED: {
+                Part old = inventory.lookupPart(in.readInt());
+                Part part = readPart(in);
+                if (old != null) {
+                    inventory.replacePart(old, part);
+                }
+                break;
+            }
+            case PART_DELETED: {
+                Part part = inventory.lookupPart(in.readInt());
+                if (part != null) {
+                    inventory.deletePart(part);
+                }
+                break;
+            }
+            case PRODUCT_ADDED:
+                inventory.addProduct(readProduct(inventory, in));
+                break;
+            case PRODUCT_UPDATED: {
+                Product old = inventory.lookupProduct(in.readInt());
+                Product product = readProduct(inventory, in);
+                if (old != null) {
+                    inventory.replaceProduct(old, product);
+                }
+                break;
+            }
+            case PRODUCT_DELETED: {
+                Product product = inventory.lookupProduct(in.readInt());
+                if (product != null) {
+                    inventory.deleteProduct(product);
+                }
+                break;
+            }
+            case PART_ASSOCIATED: {
+                Product product = inventory.lookupProduct(in.readInt());
+                Part part = inventory.lookupPart(in.readInt());
+                if (product != null && part != null) {
+                    product.addAssociatedPart(part);
+                }
+                break;
+            }
+            case PART_DISSOCIATED: {
+                Product product = inventory.lookupProduct(in.readInt());
+                Part part = inventory.lookupPart(in.readInt());
+                if (product != null && part != null) {
+                    product.deleteAssociatedPart(part);
+                }
+                break;
+            }
+            case PART_STOCK: {
+                Part part = inventory.lookupPart(in.readInt());
+                int delta = in.readInt();
+                if (part != null) {
+                    part.setStock(part.getStock() + delta);
+                }
+                break;
+            }
+            case PRODUCT_STOCK: {
+                Product product = inventory.lookupProduct(in.readInt());
+                int delta = in.readInt();
+                if (product != null) {
+                    product.setStock(product.getStock() + delta);
+                }
+                break;
+            }
+            case CHECKPOINT:
+                break;
+            default:
+                throw new IOException("Unknown inventory log record type " + type);
+        }
+    }
+
+    private static void writePart(DataOutputStream out, Part part) throws IOException {
+        out.writeByte(part instanceof InHouse ? IN_HOUSE : OUTSOURCED);
+        out.writeInt(part.getId());
+        writeText(out, part.getName());
+        out.writeDouble(part.getPrice());
+        out.writeInt(part.getStock());
+        out.writeInt(part.getMin());
+        out.writeInt(part.getMax());
+        if (part instanceof InHouse) {
+            out.writeInt(((InHouse) part).getMachineId());
+        } else {
+            writeText(out, part instanceof Outsourced ? ((Outsourced) part).getCompanyName() : null);
+        }
+    }
+
+    private static Part readPart(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        int id = in.readInt();
+        String name = readText(in);
+        double price = in.readDouble();
+        int stock = in.readInt();
+        int min = in.readInt();
+        int max = in.readInt();
+        if (kind == IN_HOUSE) {
+            return new InHouse(id, name, price, stock, min, max, in.readInt());
+        }
+        return new Outsourced(id, name, price, stock, min, max, readText(in));
+    }
+
+    private static void writeProduct(DataOutputStream out, Product product) throws IOException {
+        out.writeInt(product.getId());
+        writeText(out, product.getName());
+        out.writeDouble(product.getPrice());
+        out.writeInt(product.getStock());
+        out.writeInt(product.getMin());
+        out.writeInt(product.getMax());
+        List<Part> parts = product.getAllAssociatedParts();
+        out.writeInt(parts.size());
+        for (Part part : parts) {
+            out.writeInt(part.getId());
+        }
+    }
+
+    private static Product readProduct(Inventory inventory, DataInputStream in) throws IOException {
+        Product product = new Product(in.readInt(), readText(in), in.readDouble(), in.readInt(), in.readInt(), in.readInt());
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Part part = inventory.lookupPart(in.readInt());
+            if (part != null) {
+                product.addAssociatedPart(part);
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Writes a string as its UTF-8 length and bytes, a null string as an empty one
+     */
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeText(DataOutputStream, String)} from a record body,
+     * checking its length against what is left of the body before allocating
+     */
+    private static String readText(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Corrupt string length " + length + " in inventory log record");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the body of one record
+     */
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Counts the bytes read so replay knows where the last complete record ended
+     */
+    private static final class CountingInput extends FilterInputStream {
+        private long count;
+
+        CountingInput(InputStream in) {
+            super(new BufferedInputStream(in, 64 * 1024));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package Project.Model;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * InventoryMetrics keeps a latency histogram and a count for each kind of inventory operation
+ * and publishes each one as an {@link InventoryOperationMXBean} named
+ * {@code Project.Model:type=Inventory,name=<name>,operation=<operation>}.
+ * Recording allocates nothing and may be done from any thread.
+ * @author Diar Shabani
+ */
+public class InventoryMetrics {
+
+    /**
+     * The inventory operations that are timed
+     */
+    public enum Operation {
+        LOOKUP_PART, LOOKUP_PRODUCT, SEARCH_PARTS, SEARCH_PRODUCTS,
+        ADD_PART, ADD_PRODUCT, UPDATE_PART, UPDATE_PRODUCT, DELETE_PART, DELETE_PRODUCT,
+        ADD_PARTS, ADD_PRODUCTS, UPDATE_PARTS, UPDATE_PRODUCTS, DELETE_PARTS, DELETE_PRODUCTS, BATCH,
+        NEXT_PART_ID, NEXT_PRODUCT_ID
+    }
+
+    private static final long RATE_WINDOW_NANOS = 5_000_000_000L;
+
+    private final String name;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+    /**
+     * Constructs metrics with an empty histogram for every operation
+     * @param name Distinguishes these metrics from those of other inventories in the same process
+     */
+    public InventoryMetrics(String name) {
+        this.name = name;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    /**
+     * Records one operation that started at the given time and has just finished
+     * @param operation The kind of operation
+     * @param startNanos The {@link System#nanoTime()} when the operation started
+     */
+    public void record(Operation operation, long startNanos) {
+        stats.get(operation).histogram.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the statistics of one operation
+     * @param operation The kind of operation
+     * @return Its statistics, the same object that is published over JMX
+     */
+    public InventoryOperationMXBean get(Operation operation) {
+        return stats.get(operation);
+    }
+
+    /**
+     * Publishes every operation's statistics with the platform MBean server, replacing any
+     * published earlier under the same name
+     */
+    public void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+                ObjectName objectName = objectName(entry.getKey());
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+                server.registerMBean(entry.getValue(), objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not publish inventory metrics", e);
+        }
+    }
+
+    /**
+     * Removes every operation's statistics from the platform MBean server
+     */
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (Operation operation : Operation.values()) {
+                ObjectName objectName = objectName(operation);
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not remove inventory metrics", e);
+        }
+    }
+
+    private ObjectName objectName(Operation operation) throws JMException {
+        return new ObjectName("Project.Model:type=Inventory,name=" + ObjectName.quote(name)
+                + ",operation=" + operation.name().toLowerCase());
+    }
+
+    /**
+     * The published statistics of one operation
+     */
+    private static final class Stats implements InventoryOperationMXBean {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private volatile long resetAt = System.nanoTime();
+        private long windowStart = resetAt;
+        private long windowCount;
+        private double recentRate;
+
+        @Override
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public double getP50Micros() {
+            return histogram.getValueAtQuantile(0.5) / 1000.0;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return histogram.getValueAtQuantile(0.99) / 1000.0;
+        }
+
+        @Override
+        public double getP999Micros() {
+            return histogram.getValueAtQuantile(0.999) / 1000.0;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return histogram.getMax() / 1000.0;
+        }
+
+        @Override
+        public double getMeanRate() {
+            long elapsed = System.nanoTime() - resetAt;
+            return elapsed <= 0 ? 0 : histogram.getCount() * 1e9 / elapsed;
+        }
+
+        /**
+         * Measures the rate between this read and the start of the current window, starting a new
+         * window once the current one is a few seconds old
+         */
+        @Override
+        public synchronized double getRecentRate() {
+            long now = System.nanoTime();
+            long count = histogram.getCount();
+            long elapsed = now - windowStart;
+            if (elapsed >= RATE_WINDOW_NANOS) {
+                recentRate = (count - windowCount) * 1e9 / elapsed;
+                windowStart = now;
+                windowCount = count;
+            } else if (windowCount == 0 && elapsed > 0) {
+                recentRate = count * 1e9 / elapsed;
+            }
+            return recentRate;
+        }
+
+        @Override
+        public synchronized void reset() {
+            histogram.reset();
+            resetAt = System.nanoTime();
+            windowStart = resetAt;
+            windowCount = 0;
+            recentRate = 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package Project.Model;
+
+/**
+ * InventoryOperationMXBean publishes the latency and rate of one kind of inventory operation
+ * over JMX, for JConsole or any other JMX client
+ * @author Diar Shabani
+ */
+public interface InventoryOperationMXBean {
+
+    /**
+     * @return The number of operations recorded since the last reset
+     */
+    long getCount();
+
+    /**
+     * @return The median duration in microseconds
+     */
+    double getP50Micros();
+
+    /**
+     * @return The 99th percentile duration in microseconds
+     */
+    double getP99Micros();
+
+    /**
+     * @return The 99.9th percentile duration in microseconds
+     */
+    double getP999Micros();
+
+    /**
+     * @return The longest duration in microseconds
+     */
+    double getMaxMicros();
+
+    /**
+     * @return Operations per second since the last reset
+     */
+    double getMeanRate();
+
+    /**
+     * @return Operations per second over roughly the last few seconds
+     */
+    double getRecentRate();
+
+    /**
+     * Starts recording afresh
+     */
+    void reset();
+}
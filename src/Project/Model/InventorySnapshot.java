@@ -0,0 +1,308 @@
+package Project.Model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * InventorySnapshot is a compact binary image of every part, product and product to part
+ * association. An existing snapshot is opened with a memory mapping and nothing is decoded
+ * up front: each part or product is read from the mapping only when it is asked for, so
+ * opening a snapshot of millions of rows takes about as long as opening the file, and a tool that
+ * needs a few rows, or a part by ID, never decodes the rest.
+ * <p>
+ * An {@link Inventory} cannot be backed by the mapping, since its lists, indexes and the tables
+ * showing them hold real parts and products. {@link #restore(Inventory)} therefore still decodes
+ * every row, but the mapping is only ever read at absolute positions, so the rows are decoded on
+ * several threads at once.
+ * <p>
+ * The file holds a fixed header, the encoded parts and products in inventory order, a table of
+ * record offsets for each, and the part IDs sorted for binary search. A single mapping is used,
+ * which limits a snapshot to 2 GB.
+ * @author Diar Shabani
+ */
+public class InventorySnapshot {
+    private static final int MAGIC = 0x494E5653;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+
+    private static final byte IN_HOUSE = 0;
+    private static final byte OUTSOURCED = 1;
+
+    private final MappedByteBuffer buffer;
+    private final long checkpoint;
+    private final int partCount;
+    private final int productCount;
+    private final int partOffsetsAt;
+    private final int productOffsetsAt;
+    private final int partIdsAt;
+
+    private InventorySnapshot(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an inventory snapshot");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported inventory snapshot version " + buffer.getInt(4));
+        }
+        checkpoint = buffer.getLong(8);
+        partCount = buffer.getInt(16);
+        productCount = buffer.getInt(20);
+        partOffsetsAt = buffer.getInt(24);
+        productOffsetsAt = buffer.getInt(28);
+        partIdsAt = buffer.getInt(32);
+    }
+
+    /**
+     * Writes a snapshot of an inventory. The file is written under a temporary name and moved
+     * into place, so a crash never leaves a half-written snapshot behind.
+     * @param inventory The inventory to save
+     * @param file The snapshot file
+     * @param checkpoint An identifier stored in the header, used to pair the snapshot with a log
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(Inventory inventory, Path file, long checkpoint) throws IOException {
+        List<Part> parts = inventory.getAllParts();
+        List<Product> products = inventory.getAllProducts();
+        int[] partOffsets = new int[parts.size()];
+        int[] productOffsets = new int[products.size()];
+        long[] partIds = new long[parts.size()];
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.write(new byte[HEADER_SIZE]);
+            for (int i = 0; i < parts.size(); i++) {
+                Part part = parts.get(i);
+                partOffsets[i] = position(out);
+                partIds[i] = ((long) part.getId() << 32) | i;
+                out.writeByte(part instanceof InHouse ? IN_HOUSE : OUTSOURCED);
+                out.writeInt(part.getId());
+                out.writeDouble(part.getPrice());
+                out.writeInt(part.getStock());
+                out.writeInt(part.getMin());
+                out.writeInt(part.getMax());
+                writeString(out, part.getName());
+                if (part instanceof InHouse) {
+                    out.writeInt(((InHouse) part).getMachineId());
+                } else {
+                    writeString(out, part instanceof Outsourced ? ((Outsourced) part).getCompanyName() : null);
+                }
+            }
+            for (int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                productOffsets[i] = position(out);
+                out.writeInt(product.getId());
+                out.writeDouble(product.getPrice());
+                out.writeInt(product.getStock());
+                out.writeInt(product.getMin());
+                out.writeInt(product.getMax());
+                writeString(out, product.getName());
+                List<Part> associated = product.getAllAssociatedParts();
+                out.writeInt(associated.size());
+                for (Part part : associated) {
+                    out.writeInt(part.getId());
+                }
+            }
+
+            int partOffsetsAt = position(out);
+            for (int offset : partOffsets) {
+                out.writeInt(offset);
+            }
+            int productOffsetsAt = position(out);
+            for (int offset : productOffsets) {
+                out.writeInt(offset);
+            }
+            int partIdsAt = position(out);
+            Arrays.sort(partIds);
+            for (long entry : partIds) {
+                out.writeInt((int) (entry >> 32));
+                out.writeInt((int) entry);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(checkpoint)
+                    .putInt(parts.size()).putInt(products.size())
+                    .putInt(partOffsetsAt).putInt(productOffsetsAt).putInt(partIdsAt);
+            header.flip();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.write(header, 0);
+                channel.force(true);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot file into memory without decoding any records
+     * @param file The snapshot file
+     * @return The open snapshot
+     * @throws IOException If the file cannot be mapped or is not a snapshot
+     */
+    public static InventorySnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new InventorySnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the identifier the snapshot was written with
+     * @return The checkpoint identifier
+     */
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * @return The number of parts in the snapshot
+     */
+    public int getPartCount() {
+        return partCount;
+    }
+
+    /**
+     * @return The number of products in the snapshot
+     */
+    public int getProductCount() {
+        return productCount;
+    }
+
+    /**
+     * Decodes one part
+     * @param row The part's position in the inventory when the snapshot was written
+     * @return A new InHouse or Outsourced part
+     */
+    public Part getPart(int row) {
+        int at = buffer.getInt(partOffsetsAt + Integer.BYTES * checkIndex(row, partCount));
+        byte kind = buffer.get(at);
+        int id = buffer.getInt(at + 1);
+        double price = buffer.getDouble(at + 5);
+        int stock = buffer.getInt(at + 13);
+        int min = buffer.getInt(at + 17);
+        int max = buffer.getInt(at + 21);
+        at += 25;
+        String name = readString(at);
+        at += Integer.BYTES + buffer.getInt(at);
+        if (kind == IN_HOUSE) {
+            return new InHouse(id, name, price, stock, min, max, buffer.getInt(at));
+        }
+        return new Outsourced(id, name, price, stock, min, max, readString(at));
+    }
+
+    /**
+     * Finds a part by ID with a binary search over the sorted ID table
+     * @param partId The part ID
+     * @return A new part decoded from the snapshot, or null if no part has the ID
+     */
+    public Part lookupPart(int partId) {
+        int low = 0;
+        int high = partCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = buffer.getInt(partIdsAt + mid * 2 * Integer.BYTES);
+            if (id < partId) {
+                low = mid + 1;
+            } else if (id > partId) {
+                high = mid - 1;
+            } else {
+                return getPart(buffer.getInt(partIdsAt + mid * 2 * Integer.BYTES + Integer.BYTES));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes one product without its associated parts
+     * @param row The product's position in the inventory when the snapshot was written
+     * @return A new product with no associated parts
+     */
+    public Product getProduct(int row) {
+        int at = buffer.getInt(productOffsetsAt + Integer.BYTES * checkIndex(row, productCount));
+        return new Product(buffer.getInt(at), readString(at + 24), buffer.getDouble(at + 4),
+                buffer.getInt(at + 12), buffer.getInt(at + 16), buffer.getInt(at + 20));
+    }
+
+    /**
+     * Reads the IDs of a product's associated parts
+     * @param row The product's position in the inventory when the snapshot was written
+     * @return The part IDs, in the order the product lists them
+     */
+    public int[] getAssociatedPartIds(int row) {
+        int at = buffer.getInt(productOffsetsAt + Integer.BYTES * checkIndex(row, productCount));
+        at += 24;
+        at += Integer.BYTES + buffer.getInt(at);
+        int[] ids = new int[buffer.getInt(at)];
+        at += Integer.BYTES;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = buffer.getInt(at + i * Integer.BYTES);
+        }
+        return ids;
+    }
+
+    /**
+     * Decodes every part and product into an inventory, linking products to the restored parts.
+     * Rows are decoded in parallel, then added in two batches, so the inventory's lists and
+     * listeners see one change for all the parts and one for all the products.
+     * @param inventory The inventory to fill, normally empty
+     */
+    public void restore(Inventory inventory) {
+        Part[] parts = new Part[partCount];
+        IntStream.range(0, partCount).parallel().forEach(i -> parts[i] = getPart(i));
+        inventory.addParts(Arrays.asList(parts));
+
+        Product[] products = new Product[productCount];
+        int[][] associated = new int[productCount][];
+        IntStream.range(0, productCount).parallel().forEach(i -> {
+            products[i] = getProduct(i);
+            associated[i] = getAssociatedPartIds(i);
+        });
+        for (int i = 0; i < productCount; i++) {
+            for (int partId : associated[i]) {
+                Part part = inventory.lookupPart(partId);
+                if (part != null) {
+                    products[i].addAssociatedPart(part);
+                }
+            }
+        }
+        inventory.addProducts(Arrays.asList(products));
+    }
+
+    private String readString(int at) {
+        int length = buffer.getInt(at);
+        byte[] bytes = new byte[length];
+        buffer.get(at + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static int position(DataOutputStream out) throws IOException {
+        int size = out.size();
+        if (size == Integer.MAX_VALUE) {
+            throw new IOException("Inventory snapshot exceeds 2 GB");
+        }
+        return size;
+    }
+
+    private static int checkIndex(int row, int count) {
+        if (row < 0 || row >= count) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + count);
+        }
+        return row;
+    }
+}
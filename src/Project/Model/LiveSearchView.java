@@ -0,0 +1,338 @@
+package Project.Model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
+import javafx.collections.transformation.SortedList;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * LiveSearchView is a filtered view over one of the inventory's lists that stays attached
+ * to the same ObservableList for its whole life, so a table showing it keeps its skin and selection.
+ * Searches are prepared on the JavaFX Application Thread, run on any thread and applied back on
+ * the JavaFX Application Thread; narrowing a search only re-checks the current results.
+ * Additions, removals, replacements and in-place edits in the inventory are applied to the view
+ * as they happen.
+ * A sorted list over the filtered items is kept too: a table that binds its comparator to it
+ * sorts without reordering the filtered items, so they keep mirroring the inventory.
+ * @param <T> The type of item shown, a Part or a Product
+ * @author Diar Shabani
+ */
+public class LiveSearchView<T> {
+    private static final int MAX_MIRRORED_CHANGES = 64;
+
+    private final BatchObservableList<T> source;
+    private final TrigramIndex<T> index;
+    private final BatchObservableList<T> items = new BatchObservableList<>();
+    private final SortedList<T> sorted = new SortedList<>(items);
+    private final ListChangeListener<T> sourceListener = this::onSourceChanged;
+    private Set<T> members = new HashSet<>();
+    private TrigramIndex.Query query;
+    private boolean refinable = true;
+    private Search pending;
+
+    /**
+     * Constructs a view that initially shows every item in the source list.
+     * Views are created by {@link Inventory#createPartView()} and {@link Inventory#createProductView()}.
+     * @param source The inventory list to filter
+     * @param index The name index kept in step with the source list
+     */
+    LiveSearchView(BatchObservableList<T> source, TrigramIndex<T> index) {
+        this.source = source;
+        this.index = index;
+        items.setAll(source);
+        source.addListener(new WeakListChangeListener<>(sourceListener));
+    }
+
+    /**
+     * Returns the list to show in a table. The same list is returned for the life of the view.
+     * @return The filtered items
+     */
+    public ObservableList<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the filtered items in the order of the sorted list's comparator, which a table
+     * should bind to its own comparator. Changes to the filtered items are merged into the
+     * order as they happen instead of re-sorting everything.
+     * @return The sorted items, in source order while no comparator is set
+     */
+    public SortedList<T> getSortedItems() {
+        return sorted;
+    }
+
+    /**
+     * Returns the text of the current search
+     * @return The normalized search text, or an empty string when showing everything
+     */
+    public String getQuery() {
+        return query == null ? "" : query.getText();
+    }
+
+    /**
+     * Starts a search for the given text, to be run on any thread and then handed to
+     * {@link #apply(Search)}. When the text contains the text of the search being shown, the search
+     * only re-checks the items currently shown. Must be called on the JavaFX Application Thread.
+     * @param text The text entered by the user, empty to show everything
+     * @return The search, which replaces any search prepared earlier
+     */
+    public Search prepare(String text) {
+        TrigramIndex.Query next = text == null || text.isEmpty() ? null : new TrigramIndex.Query(text);
+        boolean refine = next != null && query != null && refinable && next.refines(query);
+        pending = new Search(next, refine ? new ArrayList<>(items) : null, null);
+        return pending;
+    }
+
+    /**
+     * Starts a search whose result was already found some other way, for example a part looked up
+     * by its exact ID. Later searches start from scratch rather than refining this result.
+     * Must be called on the JavaFX Application Thread.
+     * @param text The search text, which later changes to the inventory are matched against
+     * @param found The items to show
+     * @return The search, which replaces any search prepared earlier
+     */
+    public Search prepare(String text, List<T> found) {
+        pending = new Search(new TrigramIndex.Query(text), null, new ArrayList<>(found));
+        return pending;
+    }
+
+    /**
+     * Shows the result of a search once it has run, in the order the inventory holds the items.
+     * Items added, removed or edited while the search ran are checked again here, so the view ends
+     * up as if the search had run in an instant. A search that was replaced by a later call to
+     * {@code prepare} is ignored. Must be called on the JavaFX Application Thread.
+     * @param search The search to show
+     */
+    public void apply(Search search) {
+        if (search != pending) {
+            return;
+        }
+        pending = null;
+        if (search.query == null) {
+            query = null;
+            refinable = true;
+            members = new HashSet<>();
+            items.setAll(source);
+            return;
+        }
+        if (search.base != null) {
+            Set<T> gone = new HashSet<>();
+            for (T dropped : search.result) {
+                if (!search.touched.contains(dropped)) {
+                    gone.add(dropped);
+                }
+            }
+            for (T touched : search.touched) {
+                if (members.contains(touched) && !index.matches(touched, search.query)) {
+                    gone.add(touched);
+                }
+            }
+            query = search.query;
+            members.removeAll(gone);
+            items.removeEach(gone);
+            return;
+        }
+
+        Set<T> shown = new HashSet<>(search.result);
+        if (search.exact) {
+            shown.removeIf(item -> source.positionOf(item) < 0);
+        } else {
+            shown.removeAll(search.touched);
+            for (T touched : search.touched) {
+                if (index.matches(touched, search.query)) {
+                    shown.add(touched);
+                }
+            }
+        }
+        query = search.query;
+        refinable = !search.exact;
+        members = shown;
+        List<T> ordered = new ArrayList<>(shown);
+        source.sortInListOrder(ordered);
+        items.setAll(ordered);
+    }
+
+    /**
+     * Applies a change in the inventory list to the view as a single change of its own. With no
+     * search active the view mirrors the source position for position, or simply copies it when a
+     * batch touched many separate ranges; otherwise only items matching the search are added.
+     */
+    private void onSourceChanged(ListChangeListener.Change<? extends T> c) {
+        if (pending != null && pending.query != null) {
+            pending.touch(c);
+            c.reset();
+        }
+        items.beginBatch();
+        try {
+            if (query == null) {
+                mirror(c);
+            } else {
+                filter(c);
+            }
+        } finally {
+            items.endBatch();
+        }
+    }
+
+    private void mirror(ListChangeListener.Change<? extends T> c) {
+        int ranges = 0;
+        while (c.next()) {
+            if (c.wasPermutated() || ++ranges > MAX_MIRRORED_CHANGES) {
+                items.setAll(source);
+                return;
+            }
+        }
+        c.reset();
+        while (c.next()) {
+            if (c.wasRemoved() && !holds(c.getFrom(), c.getRemoved())) {
+                items.setAll(source);
+                return;
+            }
+            if (c.wasReplaced() && c.getRemovedSize() == c.getAddedSize()) {
+                List<? extends T> added = c.getAddedSubList();
+                for (int i = 0; i < added.size(); i++) {
+                    items.set(c.getFrom() + i, added.get(i));
+                }
+            } else {
+                if (c.wasRemoved()) {
+                    items.remove(c.getFrom(), c.getFrom() + c.getRemovedSize());
+                }
+                if (c.wasAdded()) {
+                    items.addAll(c.getFrom(), c.getAddedSubList());
+                }
+            }
+            if (c.wasUpdated()) {
+                for (int i = c.getFrom(); i < c.getTo(); i++) {
+                    int shown = items.positionOf(source.get(i));
+                    if (shown >= 0) {
+                        items.fireUpdated(shown);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the view still holds the removed items where the source held them,
+     * which stops being true if the filtered items were sorted directly rather than
+     * through {@link #getSortedItems()}
+     */
+    private boolean holds(int from, List<? extends T> removed) {
+        if (from + removed.size() > items.size()) {
+            return false;
+        }
+        for (int i = 0; i < removed.size(); i++) {
+            if (items.get(from + i) != removed.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void filter(ListChangeListener.Change<? extends T> c) {
+        Set<T> gone = new HashSet<>();
+        List<T> arrived = new ArrayList<>();
+        while (c.next()) {
+            for (T removed : c.getRemoved()) {
+                if (members.remove(removed)) {
+                    gone.add(removed);
+                }
+            }
+            arrived.addAll(c.getAddedSubList());
+            if (c.wasUpdated()) {
+                for (int i = c.getFrom(); i < c.getTo(); i++) {
+                    T updated = source.get(i);
+                    if (index.matches(updated, query)) {
+                        if (members.contains(updated)) {
+                            items.fireUpdated(items.positionOf(updated));
+                        } else {
+                            arrived.add(updated);
+                        }
+                    } else if (members.remove(updated)) {
+                        gone.add(updated);
+                    }
+                }
+            }
+        }
+        items.removeEach(gone);
+
+        List<T> shown = new ArrayList<>();
+        for (T added : arrived) {
+            if (index.matches(added, query) && members.add(added)) {
+                shown.add(added);
+            }
+        }
+        items.addAll(shown);
+    }
+
+    /**
+     * Search is one search of the view. It is prepared on the JavaFX Application Thread, which
+     * takes a copy of the shown items when the search only narrows them, then run on any thread
+     * against that copy or the concurrent name index. Until it is applied, the view records every
+     * item the inventory adds, removes or edits so those items can be checked again.
+     */
+    public final class Search implements Runnable {
+        private final TrigramIndex.Query query;
+        private final List<T> base;
+        private final boolean exact;
+        private final Set<T> touched = new HashSet<>();
+        private List<T> result;
+
+        private Search(TrigramIndex.Query query, List<T> base, List<T> found) {
+            this.query = query;
+            this.base = base;
+            this.exact = found != null;
+            this.result = found;
+        }
+
+        /**
+         * Returns the text searched for
+         * @return The normalized search text, or an empty string when showing everything
+         */
+        public String getText() {
+            return query == null ? "" : query.getText();
+        }
+
+        /**
+         * Finds the items to show, or when narrowing the items to stop showing. Does not touch
+         * the view, so it can run on any thread. Recorded as a liveSearch or liveRefine
+         * {@link InventoryEvent}.
+         */
+        @Override
+        public void run() {
+            if (query == null || exact) {
+                return;
+            }
+            InventoryEvent event = new InventoryEvent();
+            event.begin();
+            if (base == null) {
+                result = index.search(query);
+                event.finish("liveSearch", index.size(), result.size());
+                return;
+            }
+            List<T> dropped = new ArrayList<>();
+            for (T item : base) {
+                if (!index.matches(item, query)) {
+                    dropped.add(item);
+                }
+            }
+            result = dropped;
+            event.finish("liveRefine", index.size(), base.size() - dropped.size());
+        }
+
+        private void touch(ListChangeListener.Change<? extends T> c) {
+            while (c.next()) {
+                touched.addAll(c.getRemoved());
+                touched.addAll(c.getAddedSubList());
+                if (c.wasUpdated()) {
+                    touched.addAll(source.subList(c.getFrom(), c.getTo()));
+                }
+            }
+        }
+    }
+}
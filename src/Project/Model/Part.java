@@ -1,17 +1,31 @@
 package Project.Model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  *
  * @author Place Your Name Here
  */
 
 public abstract class Part {
+    private static final VarHandle STOCK;
+
+    static {
+        try {
+            STOCK = MethodHandles.lookup().findVarHandle(Part.class, "stock", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private int id;
     private String name;
     private double price;
-    private int stock;
+    private volatile int stock;
     private int min;
-    private int max;    
+    private int max;
+    private Inventory inventory;
     public Part(int id, String name, double price, int stock, int min, int max) {
         this.id = id;
         this.name = name;
@@ -57,10 +71,15 @@ public abstract class Part {
     }
 
     /**
+     * Sets the price, updating the material cost of every product in the inventory that lists this part
      * @param price the price to set
      */
     public void setPrice(double price) {
+        double old = this.price;
         this.price = price;
+        if (inventory != null && old != price) {
+            inventory.partPriceChanged(this, price - old);
+        }
     }
     
     /**
@@ -74,7 +93,49 @@ public abstract class Part {
      * @param stock the stock to set
      */
     public void setStock(int stock) {
-        this.stock = stock;
+        int previous = (int) STOCK.getAndSet(this, stock);
+        stockChanged(stock - previous);
+    }
+
+    /**
+     * Atomically adds to the stock without locking. Taking stock away fails if it would
+     * drop below min, and adding stock fails if it would rise above max.
+     * @param delta the number of units to add, negative to take units away
+     * @return true if the stock was changed, false if it would leave the min to max range
+     */
+    public boolean adjustStock(int delta) {
+        while (true) {
+            int current = stock;
+            long next = (long) current + delta;
+            if (delta < 0 ? next < min : next > max) {
+                return false;
+            }
+            if (STOCK.compareAndSet(this, current, (int) next)) {
+                stockChanged(delta);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Atomically takes units out of stock if at least min would be left
+     * @param quantity the number of units to take
+     * @return true if the units were taken, false if there are not enough
+     */
+    public boolean tryReserve(int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        return adjustStock(-quantity);
+    }
+
+    /**
+     * Atomically puts units back into stock without checking max, used to undo a reservation
+     * @param quantity the number of units to put back
+     */
+    void releaseStock(int quantity) {
+        STOCK.getAndAdd(this, quantity);
+        stockChanged(quantity);
     }
 
     /**
@@ -89,6 +150,7 @@ public abstract class Part {
      */
     public void setMin(int min) {
         this.min = min;
+        stockChanged(0);
     }
 
     /**
@@ -103,6 +165,26 @@ public abstract class Part {
      */
     public void setMax(int max) {
         this.max = max;
+        stockChanged(0);
+    }
+
+    /**
+     * Sets the inventory this part belongs to, so price changes reach the products using it
+     * and stock changes reach its watchlist
+     * @param inventory the owning inventory, or null when the part is removed
+     */
+    void setInventory(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Tells the owning inventory that the stock, min or max changed
+     * @param delta the number of units the stock moved by, 0 if only min or max changed
+     */
+    private void stockChanged(int delta) {
+        if (inventory != null) {
+            inventory.partStockChanged(this, delta);
+        }
     }
     
 }
\ No newline at end of file
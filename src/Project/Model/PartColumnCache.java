@@ -0,0 +1,320 @@
+package Project.Model;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PartColumnCache is an optional cache of every part's fields in parallel primitive arrays, one
+ * array per field, with names and company names packed into a shared character arena. Aggregates
+ * over stock and price walk contiguous memory instead of following a reference to each Part object.
+ * The Part objects in the inventory stay the authoritative copy, so the cache costs heap on top of
+ * them rather than saving it; it is only worth enabling when aggregates are read often.
+ * Rows are not kept in inventory order: removing a part moves the last row into its place.
+ * <p>
+ * The cache maps each part to its row by identity. Price and stock can change on any thread;
+ * such changes are only marked with {@link #markStale(Part)} and the rows are rewritten under
+ * the cache's lock before the next read, so the thread changing the stock never waits on the cache.
+ * @author Diar Shabani
+ */
+public class PartColumnCache {
+    private static final byte IN_HOUSE = 0;
+    private static final byte OUTSOURCED = 1;
+
+    private int size;
+    private int[] ids = new int[16];
+    private double[] prices = new double[16];
+    private int[] stocks = new int[16];
+    private int[] mins = new int[16];
+    private int[] maxes = new int[16];
+    private int[] machineIds = new int[16];
+    private byte[] kinds = new byte[16];
+    private int[] nameStarts = new int[16];
+    private int[] nameLengths = new int[16];
+    private int[] companyStarts = new int[16];
+    private int[] companyLengths = new int[16];
+    private Part[] owners = new Part[16];
+    private final Map<Part, Integer> rows = new IdentityHashMap<>();
+    private char[] arena = new char[256];
+    private int arenaUsed;
+    private int arenaLive;
+    private final Set<Part> stale = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Appends a part as a new row
+     * @param part The part to store
+     */
+    public synchronized void add(Part part) {
+        if (rows.containsKey(part)) {
+            return;
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        rows.put(part, size);
+        owners[size] = part;
+        write(size, part);
+        size++;
+    }
+
+    /**
+     * Removes a part's row, moving the last row into its place
+     * @param part The part to remove
+     */
+    public synchronized void remove(Part part) {
+        Integer removed = rows.remove(part);
+        if (removed == null) {
+            return;
+        }
+        int row = removed;
+        arenaLive -= nameLengths[row] + companyLengths[row];
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            prices[row] = prices[last];
+            stocks[row] = stocks[last];
+            mins[row] = mins[last];
+            maxes[row] = maxes[last];
+            machineIds[row] = machineIds[last];
+            kinds[row] = kinds[last];
+            nameStarts[row] = nameStarts[last];
+            nameLengths[row] = nameLengths[last];
+            companyStarts[row] = companyStarts[last];
+            companyLengths[row] = companyLengths[last];
+            owners[row] = owners[last];
+            rows.put(owners[row], row);
+        }
+        owners[last] = null;
+        compactArenaIfSparse();
+    }
+
+    /**
+     * Rewrites a part's row from its current field values, after it was edited in place
+     * @param part The part to refresh
+     */
+    public synchronized void refresh(Part part) {
+        Integer row = rows.get(part);
+        if (row != null) {
+            arenaLive -= nameLengths[row] + companyLengths[row];
+            write(row, part);
+            compactArenaIfSparse();
+        }
+    }
+
+    /**
+     * Marks a part whose price, stock, min or max changed so its row is rewritten before the
+     * next read. Does not take the cache's lock and may be called on any thread.
+     * @param part The changed part
+     */
+    void markStale(Part part) {
+        stale.add(part);
+    }
+
+    /**
+     * Returns the number of stored parts
+     * @return The number of rows
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Creates a Part holding a row's values. The returned object is a copy;
+     * changing it does not change the stored row.
+     * @param row The row to read, from 0 to size() - 1
+     * @return An InHouse or Outsourced part with the row's values
+     */
+    public synchronized Part partAt(int row) {
+        flushStale();
+        checkRow(row);
+        String name = new String(arena, nameStarts[row], nameLengths[row]);
+        if (kinds[row] == IN_HOUSE) {
+            return new InHouse(ids[row], name, prices[row], stocks[row], mins[row], maxes[row], machineIds[row]);
+        }
+        String companyName = new String(arena, companyStarts[row], companyLengths[row]);
+        return new Outsourced(ids[row], name, prices[row], stocks[row], mins[row], maxes[row], companyName);
+    }
+
+    /**
+     * @param row The row to read
+     * @return The part ID stored in the row
+     */
+    public synchronized int getId(int row) {
+        flushStale();
+        checkRow(row);
+        return ids[row];
+    }
+
+    /**
+     * @param row The row to read
+     * @return The price stored in the row
+     */
+    public synchronized double getPrice(int row) {
+        flushStale();
+        checkRow(row);
+        return prices[row];
+    }
+
+    /**
+     * @param row The row to read
+     * @return The stock stored in the row
+     */
+    public synchronized int getStock(int row) {
+        flushStale();
+        checkRow(row);
+        return stocks[row];
+    }
+
+    /**
+     * Adds up the stock of every part
+     * @return The total number of units on hand
+     */
+    public synchronized long totalStock() {
+        flushStale();
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += stocks[i];
+        }
+        return total;
+    }
+
+    /**
+     * Adds up price times stock for every part
+     * @return The value of all parts on hand
+     */
+    public synchronized double totalValue() {
+        flushStale();
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += prices[i] * stocks[i];
+        }
+        return total;
+    }
+
+    /**
+     * Counts the parts whose stock is at or below their minimum
+     * @return The number of parts that need replenishing
+     */
+    public synchronized int countAtOrBelowMin() {
+        flushStale();
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (stocks[i] <= mins[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Rewrites the numeric fields of every row marked stale since the last read
+     */
+    private void flushStale() {
+        if (stale.isEmpty()) {
+            return;
+        }
+        for (Iterator<Part> it = stale.iterator(); it.hasNext(); ) {
+            Part part = it.next();
+            it.remove();
+            Integer row = rows.get(part);
+            if (row != null) {
+                prices[row] = part.getPrice();
+                stocks[row] = part.getStock();
+                mins[row] = part.getMin();
+                maxes[row] = part.getMax();
+            }
+        }
+    }
+
+    private void write(int row, Part part) {
+        ids[row] = part.getId();
+        prices[row] = part.getPrice();
+        stocks[row] = part.getStock();
+        mins[row] = part.getMin();
+        maxes[row] = part.getMax();
+        nameStarts[row] = append(part.getName());
+        nameLengths[row] = length(part.getName());
+        if (part instanceof InHouse) {
+            kinds[row] = IN_HOUSE;
+            machineIds[row] = ((InHouse) part).getMachineId();
+            companyStarts[row] = 0;
+            companyLengths[row] = 0;
+        } else {
+            kinds[row] = OUTSOURCED;
+            machineIds[row] = 0;
+            String companyName = part instanceof Outsourced ? ((Outsourced) part).getCompanyName() : null;
+            companyStarts[row] = append(companyName);
+            companyLengths[row] = length(companyName);
+        }
+        arenaLive += nameLengths[row] + companyLengths[row];
+    }
+
+    /**
+     * Copies a string onto the end of the arena
+     * @return The offset the string starts at
+     */
+    private int append(String text) {
+        int length = length(text);
+        if (arenaUsed + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaUsed + length));
+        }
+        int start = arenaUsed;
+        if (length > 0) {
+            text.getChars(0, length, arena, start);
+        }
+        arenaUsed += length;
+        return start;
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+
+    /**
+     * Copies only the strings still referenced by a row into a fresh arena,
+     * once more than half the arena is held by removed or rewritten rows
+     */
+    private void compactArenaIfSparse() {
+        if (arenaUsed <= 1024 || arenaLive >= arenaUsed / 2) {
+            return;
+        }
+        char[] packed = new char[Math.max(256, arenaLive * 2)];
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(arena, nameStarts[i], packed, used, nameLengths[i]);
+            nameStarts[i] = used;
+            used += nameLengths[i];
+            System.arraycopy(arena, companyStarts[i], packed, used, companyLengths[i]);
+            companyStarts[i] = used;
+            used += companyLengths[i];
+        }
+        arena = packed;
+        arenaUsed = used;
+        arenaLive = used;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        stocks = Arrays.copyOf(stocks, capacity);
+        mins = Arrays.copyOf(mins, capacity);
+        maxes = Arrays.copyOf(maxes, capacity);
+        machineIds = Arrays.copyOf(machineIds, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        nameStarts = Arrays.copyOf(nameStarts, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+        companyStarts = Arrays.copyOf(companyStarts, capacity);
+        companyLengths = Arrays.copyOf(companyLengths, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + size);
+        }
+    }
+}
@@ -2,21 +2,42 @@ package Project.Model;
 
 import Project.Model.Part;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Product is a distinct item that is composed of Part objects
  * @author Diar Shabani
  */
 public class Product {
+    private static final VarHandle STOCK;
+    private static final VarHandle MATERIAL_COST;
+
+    static {
+        try {
+            STOCK = MethodHandles.lookup().findVarHandle(Product.class, "stock", int.class);
+            MATERIAL_COST = MethodHandles.lookup().findVarHandle(Product.class, "materialCost", double.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private ObservableList<Part> associatedParts;
-    private static int nextId = 0;
+    private volatile Part[] associatedSnapshot = new Part[0];
     private int id;
     private String name;
     private double price;
-    private int stock;
+    private volatile int stock;
     private int min;
     private int max;
+    private volatile double materialCost;
+    private Inventory inventory;
 
     /**
      * Constructor for the Product class.
@@ -28,21 +49,30 @@ public class Product {
      * @param max  The maximum amount stock for the product
      */
     public Product(int id, String name, double price, int stock, int min, int max) {
-        this.id = ++nextId;
+        this.id = id;
         this.name = name;
         this.price = price;
         this.stock = stock;
         this.min = min;
         this.max = max;
         this.associatedParts = FXCollections.observableArrayList();
-    }
-
-    /**
-     * Returns the next available ID for a new Product
-     * @return The next available ID
-     */
-    public static int getNextId() {
-        return nextId + 1;
+        this.associatedParts.addListener((ListChangeListener<Part>) c -> {
+            associatedSnapshot = associatedParts.toArray(new Part[0]);
+            if (inventory == null) {
+                refreshMaterialCost();
+                return;
+            }
+            double delta = 0;
+            while (c.next()) {
+                for (Part removed : c.getRemoved()) {
+                    delta -= removed.getPrice();
+                }
+                for (Part added : c.getAddedSubList()) {
+                    delta += added.getPrice();
+                }
+            }
+            addMaterialCost(delta);
+        });
     }
 
     /**
@@ -90,7 +120,31 @@ public class Product {
      * @param price The price to set for the product object
      */
     public void setPrice(double price) {
+        double old = this.price;
         this.price = price;
+        if (inventory != null && old != price) {
+            inventory.productPriceChanged(this);
+        }
+    }
+
+    /**
+     * Returns the summed price of the associated parts, counting a part once per listing.
+     * The total is cached. While the product is in an inventory it is adjusted by the price of
+     * each part listed or unlisted and by each price change of a listed part, so keeping it
+     * current costs the size of the change rather than a pass over every associated part.
+     * It is summed afresh whenever the product joins an inventory.
+     * @return The material cost of the product
+     */
+    public double getMaterialCost() {
+        return materialCost;
+    }
+
+    /**
+     * Returns the price of the product less its material cost
+     * @return The margin of the product
+     */
+    public double getMargin() {
+        return price - materialCost;
     }
 
     /**
@@ -106,7 +160,40 @@ public class Product {
      * @param stock The stock amount to set for the product object
      */
     public void setStock(int stock) {
-        this.stock = stock;
+        int previous = (int) STOCK.getAndSet(this, stock);
+        stockChanged(stock - previous);
+    }
+
+    /**
+     * Atomically adds to the stock of the product without locking. Taking stock away fails if it
+     * would drop below the minimum, and adding stock fails if it would rise above the maximum.
+     * @param delta The number of units to add, negative to take units away
+     * @return True if the stock was changed, false if it would leave the min to max range
+     */
+    public boolean adjustStock(int delta) {
+        while (true) {
+            int current = stock;
+            long next = (long) current + delta;
+            if (delta < 0 ? next < min : next > max) {
+                return false;
+            }
+            if (STOCK.compareAndSet(this, current, (int) next)) {
+                stockChanged(delta);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Atomically takes units of the product out of stock if at least the minimum would be left
+     * @param quantity The number of units to take
+     * @return True if the units were taken, false if there are not enough
+     */
+    public boolean tryReserve(int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        return adjustStock(-quantity);
     }
 
     /**
@@ -123,6 +210,7 @@ public class Product {
      */
     public void setMin(int min) {
         this.min = min;
+        stockChanged(0);
     }
 
     /**
@@ -139,6 +227,7 @@ public class Product {
      */
     public void setMax(int max) {
         this.max = max;
+        stockChanged(0);
     }
 
     /**
@@ -147,6 +236,9 @@ public class Product {
      */
     public void addAssociatedPart(Part part) {
         associatedParts.add(part);
+        if (inventory != null) {
+            inventory.partAssociated(this, part);
+        }
     }
 
     /**
@@ -154,7 +246,17 @@ public class Product {
      * @param parts the associated parts list to add
      */
     public void addAssociatedParts(ObservableList parts) {
+        if (inventory != null) {
+            for (Part part : associatedParts) {
+                inventory.partDissociated(this, part);
+            }
+        }
         associatedParts.setAll(parts);
+        if (inventory != null) {
+            for (Part part : associatedParts) {
+                inventory.partAssociated(this, part);
+            }
+        }
     }
 
     /**
@@ -163,7 +265,13 @@ public class Product {
      * @return true if the part was successfully deleted, false otherwise
      */
     public boolean deleteAssociatedPart(Part part) {
-        return associatedParts.remove(part);
+        if (associatedParts.remove(part)) {
+            if (inventory != null) {
+                inventory.partDissociated(this, part);
+            }
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -174,5 +282,87 @@ public class Product {
         return associatedParts;
     }
 
+    /**
+     * Returns the associated parts as they were after their last change, copied so the list can be
+     * read on any thread while the thread that owns the inventory changes the associated parts
+     * @return An unmodifiable copy of the associated parts
+     */
+    public List<Part> getAssociatedPartsSnapshot() {
+        return Collections.unmodifiableList(Arrays.asList(associatedSnapshot));
+    }
+
+    /**
+     * Sets the inventory this product belongs to, so changes to its associated parts
+     * are reflected in the inventory's where-used index
+     * @param inventory The owning inventory, or null when the product is removed
+     */
+    void setInventory(Inventory inventory) {
+        this.inventory = inventory;
+        if (inventory != null) {
+            refreshMaterialCost();
+        }
+    }
+
+    /**
+     * Tells the owning inventory that the stock, min or max changed
+     * @param delta the number of units the stock moved by, 0 if only min or max changed
+     */
+    private void stockChanged(int delta) {
+        if (inventory != null) {
+            inventory.productStockChanged(this, delta);
+        }
+    }
+
+    /**
+     * Adjusts the cached material cost, for example by the price change of a listed part times
+     * the number of times it is listed. Safe to call from any thread.
+     * @param delta The amount to add, negative to subtract
+     */
+    void addMaterialCost(double delta) {
+        if (delta == 0) {
+            return;
+        }
+        double current;
+        do {
+            current = materialCost;
+        } while (!MATERIAL_COST.compareAndSet(this, current, current + delta));
+    }
+
+    /**
+     * Recomputes the cached material cost from the associated parts, dropping any rounding
+     * the adjustments have gathered. Final because the constructor's listener calls it before
+     * a subclass is initialized.
+     */
+    final void refreshMaterialCost() {
+        double cost = 0;
+        for (Part part : associatedParts) {
+            cost += part.getPrice();
+        }
+        materialCost = cost;
+    }
+
+    /**
+     * Removes every listing of a part without notifying the inventory, used when the
+     * inventory deletes the part and drops its where-used entry itself
+     * @param part The part to remove
+     */
+    void purgeAssociatedPart(Part part) {
+        associatedParts.removeIf(associated -> associated == part);
+    }
+
+    /**
+     * Points every listing of a part at the part replacing it, without notifying the inventory,
+     * used when the inventory swaps the part and moves its where-used entry itself
+     * @param part The part being replaced
+     * @param replacement The part taking its place
+     */
+    void repointAssociatedPart(Part part, Part replacement) {
+        for (int i = 0; i < associatedParts.size(); i++) {
+            if (associatedParts.get(i) == part) {
+                associatedParts.set(i, replacement);
+            }
+        }
+    }
+
 
 }
\ No newline at end of file
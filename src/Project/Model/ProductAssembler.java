@@ -0,0 +1,137 @@
+package Project.Model;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * ProductAssembler builds products out of their associated parts, taking the parts out of stock
+ * all or nothing. No locks are taken: each part is reserved with {@link Part#tryReserve(int)}, and
+ * if any part runs short the parts already taken are put back. Builds that share a popular part
+ * therefore only contend on that part's compare-and-set, never on a lock held across the whole
+ * build, and no ordering of parts can deadlock.
+ * <p>
+ * While a build is in progress other threads can briefly see some of its parts taken, so a
+ * concurrent build may fail that would have succeeded a moment later.
+ * @author Diar Shabani
+ */
+public class ProductAssembler {
+
+    private ProductAssembler() {
+    }
+
+    /**
+     * Builds units of a product, taking the associated parts out of stock and adding the units to
+     * the product's stock. A part listed more than once is taken once per listing for each unit.
+     * Nothing changes unless every part can be taken and the product has room for the units.
+     * @param product The product to build
+     * @param quantity The number of units to build
+     * @return True if the units were built, false if a part ran short or the product is full
+     */
+    public static boolean build(Product product, int quantity) {
+        return build(product, quantity, billOfMaterials(product));
+    }
+
+    /**
+     * Builds a batch of orders in parallel. Each order succeeds or fails on its own, exactly as
+     * if {@link #build(Product, int)} had been called for it.
+     * @param orders The orders to build
+     * @return Whether each order was built, in the same order
+     */
+    public static boolean[] buildAll(List<BuildOrder> orders) {
+        Map<Product, Bill> bills = new ConcurrentHashMap<>();
+        boolean[] built = new boolean[orders.size()];
+        IntStream.range(0, orders.size()).parallel().forEach(i -> {
+            BuildOrder order = orders.get(i);
+            Bill bill = bills.computeIfAbsent(order.getProduct(), ProductAssembler::billOfMaterials);
+            built[i] = build(order.getProduct(), order.getQuantity(), bill);
+        });
+        return built;
+    }
+
+    private static boolean build(Product product, int quantity, Bill bill) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        int taken = 0;
+        while (taken < bill.parts.length) {
+            long units = (long) bill.counts[taken] * quantity;
+            if (units > Integer.MAX_VALUE || !bill.parts[taken].tryReserve((int) units)) {
+                break;
+            }
+            taken++;
+        }
+        if (taken == bill.parts.length && product.adjustStock(quantity)) {
+            return true;
+        }
+        for (int i = 0; i < taken; i++) {
+            bill.parts[i].releaseStock(bill.counts[i] * quantity);
+        }
+        return false;
+    }
+
+    /**
+     * Counts how many of each part one unit of a product uses
+     */
+    private static Bill billOfMaterials(Product product) {
+        Map<Part, Integer> counts = new LinkedHashMap<>();
+        for (Part part : product.getAllAssociatedParts()) {
+            counts.merge(part, 1, Integer::sum);
+        }
+        Bill bill = new Bill(counts.size());
+        int i = 0;
+        for (Map.Entry<Part, Integer> entry : counts.entrySet()) {
+            bill.parts[i] = entry.getKey();
+            bill.counts[i] = entry.getValue();
+            i++;
+        }
+        return bill;
+    }
+
+    /**
+     * The distinct parts of a product and how many of each one unit uses
+     */
+    private static final class Bill {
+        private final Part[] parts;
+        private final int[] counts;
+
+        Bill(int size) {
+            parts = new Part[size];
+            counts = new int[size];
+        }
+    }
+
+    /**
+     * BuildOrder asks for a number of units of a product to be built
+     */
+    public static final class BuildOrder {
+        private final Product product;
+        private final int quantity;
+
+        /**
+         * Constructs a build order
+         * @param product The product to build
+         * @param quantity The number of units to build
+         */
+        public BuildOrder(Product product, int quantity) {
+            this.product = product;
+            this.quantity = quantity;
+        }
+
+        /**
+         * @return The product to build
+         */
+        public Product getProduct() {
+            return product;
+        }
+
+        /**
+         * @return The number of units to build
+         */
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+}
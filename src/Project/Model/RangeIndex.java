@@ -0,0 +1,176 @@
+package Project.Model;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * RangeIndex keeps parts or products sorted by price, stock, min and max, so finding every item
+ * whose field falls in a range costs a skip list descent plus the number of matches instead of a
+ * scan of the whole inventory. The four keys of each item are remembered together, so an item can
+ * be repositioned or removed after its fields have changed.
+ * <p>
+ * Fields can change on any thread. Each item is repositioned atomically under its own entry in a
+ * concurrent map, and items with the same value share a bucket with its own lock, so threads
+ * changing different items only meet when they move into or out of the same value. An item is
+ * added to its new bucket before it leaves the old one, so a range query running while it moves
+ * finds it at one position or the other.
+ * @param <T> The type of item indexed, a Part or a Product
+ * @author Diar Shabani
+ */
+public class RangeIndex<T> {
+
+    /**
+     * The fields an item is indexed by
+     */
+    public enum Field {
+        PRICE,
+        STOCK,
+        MIN,
+        MAX
+    }
+
+    private static final Field[] FIELDS = Field.values();
+
+    private final Map<Field, ToDoubleFunction<T>> readers = new EnumMap<>(Field.class);
+    private final Map<Field, ConcurrentSkipListMap<Double, Bucket<T>>> trees = new EnumMap<>(Field.class);
+    private final ConcurrentHashMap<T, double[]> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an empty index
+     * @param readerOf Supplies the function that reads each field of an item
+     */
+    public RangeIndex(Function<Field, ToDoubleFunction<T>> readerOf) {
+        for (Field field : FIELDS) {
+            readers.put(field, readerOf.apply(field));
+            trees.put(field, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /**
+     * Adds an item under the current values of its fields
+     * @param item The item to add
+     */
+    public void add(T item) {
+        keys.computeIfAbsent(item, key -> {
+            double[] values = new double[FIELDS.length];
+            for (Field field : FIELDS) {
+                values[field.ordinal()] = readers.get(field).applyAsDouble(key);
+                place(trees.get(field), values[field.ordinal()], key);
+            }
+            return values;
+        });
+    }
+
+    /**
+     * Removes an item using the keys it was indexed under
+     * @param item The item to remove
+     */
+    public void remove(T item) {
+        keys.computeIfPresent(item, (key, values) -> {
+            for (Field field : FIELDS) {
+                unplace(trees.get(field), values[field.ordinal()], key);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Repositions an item under each field whose value changed since it was indexed
+     * @param item The changed item
+     */
+    public void refresh(T item) {
+        keys.computeIfPresent(item, (key, values) -> {
+            for (Field field : FIELDS) {
+                double value = readers.get(field).applyAsDouble(key);
+                if (Double.compare(value, values[field.ordinal()]) != 0) {
+                    ConcurrentSkipListMap<Double, Bucket<T>> tree = trees.get(field);
+                    place(tree, value, key);
+                    unplace(tree, values[field.ordinal()], key);
+                    values[field.ordinal()] = value;
+                }
+            }
+            return values;
+        });
+    }
+
+    /**
+     * Finds every item whose field lies between two bounds
+     * @param field The field to compare
+     * @param from The lower bound
+     * @param fromInclusive True if items equal to the lower bound match
+     * @param to The upper bound
+     * @param toInclusive True if items equal to the upper bound match
+     * @return The matching items, in ascending order of the field
+     */
+    public List<T> range(Field field, double from, boolean fromInclusive, double to, boolean toInclusive) {
+        Set<T> items = new LinkedHashSet<>();
+        if (from < to || from == to && fromInclusive && toInclusive) {
+            for (Bucket<T> bucket : trees.get(field).subMap(from, fromInclusive, to, toInclusive).values()) {
+                synchronized (bucket) {
+                    items.addAll(bucket.items);
+                }
+            }
+        }
+        return new ArrayList<>(items);
+    }
+
+    /**
+     * Returns the number of items indexed
+     * @return The number of items
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Adds an item to the bucket for a value, retrying if the bucket emptied and was retired
+     * between finding it and locking it
+     */
+    private static <T> void place(ConcurrentSkipListMap<Double, Bucket<T>> tree, double key, T item) {
+        while (true) {
+            Bucket<T> bucket = tree.computeIfAbsent(key, k -> new Bucket<>());
+            synchronized (bucket) {
+                if (!bucket.retired) {
+                    bucket.items.add(item);
+                    return;
+                }
+            }
+            tree.remove(key, bucket);
+        }
+    }
+
+    /**
+     * Removes an item from the bucket for a value, retiring the bucket once it is empty
+     */
+    private static <T> void unplace(ConcurrentSkipListMap<Double, Bucket<T>> tree, double key, T item) {
+        Bucket<T> bucket = tree.get(key);
+        if (bucket == null) {
+            return;
+        }
+        synchronized (bucket) {
+            bucket.items.remove(item);
+            if (bucket.items.isEmpty()) {
+                bucket.retired = true;
+                tree.remove(key, bucket);
+            }
+        }
+    }
+
+    /**
+     * The items sharing one value of one field. A bucket that became empty is retired and never
+     * reused, so an item is never added to a bucket that has left the tree.
+     */
+    private static final class Bucket<T> {
+        final Set<T> items = new HashSet<>();
+        boolean retired;
+    }
+}
@@ -0,0 +1,302 @@
+package Project.Model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * StockWatchlist keeps parts or products ordered by how far their stock is above min and how far
+ * it is below max, so finding everything due for reordering reads only the items that qualify
+ * instead of comparing every item's stock. The inventory repositions an item whenever its stock,
+ * min or max changes, and listeners are told when an item moves between running low, normal and full.
+ * <p>
+ * Stock can change on any thread. Each item is repositioned atomically under its own entry in a
+ * concurrent map and the orderings are concurrent skip lists, so threads changing the stock of
+ * different items never wait on each other. Queries take no lock and, while stock is moving,
+ * reflect each item at either its old or its new position. Listeners run on the thread that
+ * changed the stock, after the item has been repositioned, unless they were registered with an
+ * executor, such as {@code Platform::runLater} for listeners that update the interface.
+ * @param <T> The type of item watched, a Part or a Product
+ * @author Diar Shabani
+ */
+public class StockWatchlist<T> {
+
+    /**
+     * Where an item's stock sits relative to its min and max
+     */
+    public enum Level {
+        /** Stock is at or below min */
+        LOW,
+        /** Stock is above min and below max */
+        NORMAL,
+        /** Stock is at or above max */
+        FULL
+    }
+
+    /**
+     * Receives threshold crossings
+     * @param <T> The type of item watched
+     */
+    public interface Listener<T> {
+        /**
+         * Called when an item's stock moves to a different level
+         * @param item The item whose stock changed
+         * @param from The level it was at
+         * @param to The level it is at now
+         */
+        void levelChanged(T item, Level from, Level to);
+    }
+
+    private final ToIntFunction<T> stockOf;
+    private final ToIntFunction<T> minOf;
+    private final ToIntFunction<T> maxOf;
+    private final ConcurrentHashMap<T, Position<T>> positions = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Position<T>> byMargin = new ConcurrentSkipListSet<>(Position.BY_MARGIN);
+    private final ConcurrentSkipListSet<Position<T>> byHeadroom = new ConcurrentSkipListSet<>(Position.BY_HEADROOM);
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Registration<T>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructs an empty watchlist
+     * @param stockOf Reads the stock of an item
+     * @param minOf Reads the min of an item
+     * @param maxOf Reads the max of an item
+     */
+    public StockWatchlist(ToIntFunction<T> stockOf, ToIntFunction<T> minOf, ToIntFunction<T> maxOf) {
+        this.stockOf = stockOf;
+        this.minOf = minOf;
+        this.maxOf = maxOf;
+    }
+
+    /**
+     * Starts watching an item. No event is fired, even if it is already low or full.
+     * @param item The item to watch
+     */
+    public void add(T item) {
+        positions.computeIfAbsent(item, key -> place(measure(key)));
+    }
+
+    /**
+     * Stops watching an item
+     * @param item The item to forget
+     * @return The level it was at, or null if it was not watched
+     */
+    public Level remove(T item) {
+        Position<T> position = positions.remove(item);
+        if (position == null) {
+            return null;
+        }
+        unplace(position);
+        return position.level();
+    }
+
+    /**
+     * Repositions an item after its stock, min or max changed, notifying listeners if it
+     * crossed into a different level
+     * @param item The changed item
+     */
+    public void refresh(T item) {
+        Move<T> move = new Move<>();
+        positions.computeIfPresent(item, (key, position) -> {
+            Position<T> next = measure(key);
+            move.from = position;
+            move.to = position;
+            if (next.margin != position.margin || next.headroom != position.headroom) {
+                unplace(position);
+                place(next);
+                move.to = next;
+            }
+            return move.to;
+        });
+        if (move.from != null) {
+            fire(item, move.from.level(), move.to.level());
+        }
+    }
+
+    /**
+     * Treats an item that took another's place as having been at the other's level,
+     * notifying listeners if it is at a different one
+     * @param item The replacement, already added
+     * @param previous The level of the item it replaced
+     */
+    void inherit(T item, Level previous) {
+        Position<T> position = positions.get(item);
+        if (position != null) {
+            fire(item, previous, position.level());
+        }
+    }
+
+    /**
+     * Returns the level an item is at
+     * @param item The item to check
+     * @return Its level, or null if it is not watched
+     */
+    public Level getLevel(T item) {
+        Position<T> position = positions.get(item);
+        return position == null ? null : position.level();
+    }
+
+    /**
+     * Finds every item whose stock is at or below its min
+     * @return The items due for reordering, furthest below min first
+     */
+    public List<T> getLowItems() {
+        return getItemsWithin(0);
+    }
+
+    /**
+     * Finds every item whose stock is no more than a number of units above its min
+     * @param units How close to min the stock must be
+     * @return The matching items, those with the least stock above min first
+     */
+    public List<T> getItemsWithin(int units) {
+        return collect(byMargin.headSet(new Position<>(null, units, Long.MAX_VALUE, Long.MAX_VALUE), true));
+    }
+
+    /**
+     * Finds every item whose stock is at or above its max
+     * @return The full items, furthest above max first
+     */
+    public List<T> getFullItems() {
+        return collect(byHeadroom.headSet(new Position<>(null, Long.MAX_VALUE, 0, Long.MAX_VALUE), true));
+    }
+
+    /**
+     * Returns the number of items watched
+     * @return The number of items
+     */
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * Registers a listener for threshold crossings, called on the thread that changed the stock
+     * @param listener The listener
+     */
+    public void addListener(Listener<T> listener) {
+        listeners.add(new Registration<>(listener, null));
+    }
+
+    /**
+     * Registers a listener for threshold crossings, called through an executor, for example
+     * {@code Platform::runLater} to receive crossings on the JavaFX Application Thread
+     * @param listener The listener
+     * @param executor Runs each call to the listener
+     */
+    public void addListener(Listener<T> listener, Executor executor) {
+        listeners.add(new Registration<>(listener, executor));
+    }
+
+    /**
+     * Removes a listener registered with either addListener method
+     * @param listener The listener
+     */
+    public void removeListener(Listener<T> listener) {
+        listeners.removeIf(registration -> registration.listener == listener);
+    }
+
+    /**
+     * Reads an item's current stock, min and max into a new position
+     */
+    private Position<T> measure(T item) {
+        int stock = stockOf.applyAsInt(item);
+        return new Position<>(item, (long) stock - minOf.applyAsInt(item),
+                (long) maxOf.applyAsInt(item) - stock, sequence.incrementAndGet());
+    }
+
+    private Position<T> place(Position<T> position) {
+        byMargin.add(position);
+        byHeadroom.add(position);
+        return position;
+    }
+
+    private void unplace(Position<T> position) {
+        byMargin.remove(position);
+        byHeadroom.remove(position);
+    }
+
+    /**
+     * Copies the items in a range of one ordering. An item repositioned while the range is read
+     * can be passed at both positions, so it is only taken once.
+     */
+    private static <T> List<T> collect(NavigableSet<Position<T>> range) {
+        Set<T> items = new LinkedHashSet<>();
+        for (Position<T> position : range) {
+            items.add(position.item);
+        }
+        return new ArrayList<>(items);
+    }
+
+    private void fire(T item, Level from, Level to) {
+        if (from != to) {
+            for (Registration<T> registration : listeners) {
+                if (registration.executor == null) {
+                    registration.listener.levelChanged(item, from, to);
+                } else {
+                    registration.executor.execute(() -> registration.listener.levelChanged(item, from, to));
+                }
+            }
+        }
+    }
+
+    /**
+     * A listener and the executor it is called through, or null to call it directly
+     */
+    private static final class Registration<T> {
+        final Listener<T> listener;
+        final Executor executor;
+
+        Registration(Listener<T> listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * The positions an item moved between in one refresh, filled in while its map entry is held
+     */
+    private static final class Move<T> {
+        Position<T> from;
+        Position<T> to;
+    }
+
+    /**
+     * Where an item sat in both orderings when it was last placed. Positions are never changed;
+     * moving an item replaces its position. The sequence number orders items with equal keys
+     * by when they were placed.
+     */
+    private static final class Position<T> {
+        static final Comparator<Position<?>> BY_MARGIN = (a, b) -> a.margin != b.margin
+                ? Long.compare(a.margin, b.margin) : Long.compare(a.sequence, b.sequence);
+        static final Comparator<Position<?>> BY_HEADROOM = (a, b) -> a.headroom != b.headroom
+                ? Long.compare(a.headroom, b.headroom) : Long.compare(a.sequence, b.sequence);
+
+        final T item;
+        final long margin;
+        final long headroom;
+        final long sequence;
+
+        Position(T item, long margin, long headroom, long sequence) {
+            this.item = item;
+            this.margin = margin;
+            this.headroom = headroom;
+            this.sequence = sequence;
+        }
+
+        Level level() {
+            if (margin <= 0) {
+                return Level.LOW;
+            }
+            return headroom <= 0 ? Level.FULL : Level.NORMAL;
+        }
+    }
+}
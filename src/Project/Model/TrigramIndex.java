@@ -0,0 +1,243 @@
+package Project.Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * TrigramIndex is an inverted index from three-character substrings to the items whose
+ * name or ID contain them. A substring query only has to look at items found in every
+ * posting list of the query's trigrams instead of checking the whole catalogue.
+ * Queries shorter than three characters cannot be broken into trigrams and fall back to a scan.
+ * <p>
+ * The index is searched from background threads while the inventory changes it on the JavaFX
+ * Application Thread, so it is built from concurrent maps and sets. A search running while an
+ * item is added or removed may or may not include that item, but never fails or sees a torn entry;
+ * {@link LiveSearchView} reconciles the items that changed while a search ran.
+ * @param <T> The type of item indexed, a Part or a Product
+ * @author Diar Shabani
+ */
+public class TrigramIndex<T> {
+    private final Function<T, String> nameOf;
+    private final ToIntFunction<T> idOf;
+    private final ConcurrentHashMap<Long, Set<T>> postings = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<T, String[]> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an empty index
+     * @param nameOf Reads the searchable name of an item
+     * @param idOf Reads the ID of an item, which is searchable by its digits
+     */
+    public TrigramIndex(Function<T, String> nameOf, ToIntFunction<T> idOf) {
+        this.nameOf = nameOf;
+        this.idOf = idOf;
+    }
+
+    /**
+     * Adds an item to the index using its current name and ID
+     * @param item The item to add
+     */
+    public void add(T item) {
+        String[] fields = {normalize(nameOf.apply(item)), Integer.toString(idOf.applyAsInt(item))};
+        if (keys.putIfAbsent(item, fields) != null) {
+            return;
+        }
+        for (String field : fields) {
+            for (int i = 0; i + 3 <= field.length(); i++) {
+                postings.compute(trigram(field, i), (gram, posting) -> {
+                    Set<T> items = posting != null ? posting : ConcurrentHashMap.newKeySet();
+                    items.add(item);
+                    return items;
+                });
+            }
+        }
+    }
+
+    /**
+     * Removes an item using the name and ID it was indexed under, so it works even if
+     * the item has been renamed since it was added
+     * @param item The item to remove
+     */
+    public void remove(T item) {
+        String[] fields = keys.remove(item);
+        if (fields == null) {
+            return;
+        }
+        for (String field : fields) {
+            for (int i = 0; i + 3 <= field.length(); i++) {
+                postings.computeIfPresent(trigram(field, i), (gram, posting) -> {
+                    posting.remove(item);
+                    return posting.isEmpty() ? null : posting;
+                });
+            }
+        }
+    }
+
+    /**
+     * Finds every item whose name contains the query ignoring case, or whose ID contains it.
+     * The index does not know where items sit in the inventory, so the matches come back in no
+     * particular order; {@link Inventory} puts them back into list order before showing them.
+     * @param query The text to search for
+     * @return The matching items
+     */
+    public List<T> search(String query) {
+        return search(new Query(query));
+    }
+
+    /**
+     * Finds every item matching an already normalized query. Matching compares against the
+     * keys cached when each item was indexed, and each posting list is looked up once, so a
+     * search allocates nothing beyond the result list and one list of posting lists.
+     * @param query The normalized query
+     * @return The matching items, in no particular order
+     */
+    public List<T> search(Query query) {
+        return search(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds items matching an already normalized query, stopping once enough are found
+     * @param query The normalized query
+     * @param limit The most items to return
+     * @return Up to limit matching items, in no particular order
+     */
+    public List<T> search(Query query, int limit) {
+        List<T> matches = new ArrayList<>();
+        if (limit <= 0) {
+            return matches;
+        }
+        String needle = query.needle;
+        if (needle.length() < 3) {
+            for (Map.Entry<T, String[]> entry : keys.entrySet()) {
+                if (query.matches(entry.getValue())) {
+                    matches.add(entry.getKey());
+                    if (matches.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return matches;
+        }
+
+        List<Set<T>> found = new ArrayList<>(needle.length() - 2);
+        Set<T> smallest = null;
+        for (int i = 0; i + 3 <= needle.length(); i++) {
+            Set<T> posting = postings.get(trigram(needle, i));
+            if (posting == null) {
+                return matches;
+            }
+            found.add(posting);
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+
+        candidates:
+        for (T item : smallest) {
+            for (Set<T> posting : found) {
+                if (posting != smallest && !posting.contains(item)) {
+                    continue candidates;
+                }
+            }
+            if (matches(item, query)) {
+                matches.add(item);
+                if (matches.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Checks a single indexed item against a query using its cached keys
+     * @param item The item to check
+     * @param query The normalized query
+     * @return True if the item is indexed and matches the query
+     */
+    public boolean matches(T item, Query query) {
+        String[] fields = keys.get(item);
+        return fields != null && query.matches(fields);
+    }
+
+    /**
+     * Returns the number of items in the index
+     * @return The number of indexed items
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Lowercases a name the same way for indexing and for queries
+     */
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Packs the three characters starting at an offset into a single key
+     */
+    private static long trigram(String s, int offset) {
+        return ((long) s.charAt(offset) << 32) | ((long) s.charAt(offset + 1) << 16) | s.charAt(offset + 2);
+    }
+
+    /**
+     * Query holds search text normalized once, so it can be matched against many items
+     * without lowercasing or converting IDs to strings per item.
+     */
+    public static final class Query {
+        private final String needle;
+        private final String digits;
+
+        /**
+         * Normalizes the search text
+         * @param text The text entered by the user
+         */
+        public Query(String text) {
+            this.needle = normalize(text);
+            this.digits = isDigits(text) ? text : null;
+        }
+
+        /**
+         * Returns the lowercased search text
+         * @return The normalized text
+         */
+        public String getText() {
+            return needle;
+        }
+
+        /**
+         * Checks whether every item matching this query also matches another query,
+         * which holds when this query's text contains the other's
+         * @param other The broader query
+         * @return True if this query can only narrow the other's results
+         */
+        public boolean refines(Query other) {
+            return needle.contains(other.needle);
+        }
+
+        /**
+         * Checks a candidate's indexed fields, since sharing every trigram with the query
+         * does not guarantee the query appears as one contiguous substring.
+         * ID digits are only compared when the query is made of digits.
+         */
+        private boolean matches(String[] fields) {
+            return fields[0].contains(needle) || (digits != null && fields[1].contains(digits));
+        }
+
+        private static boolean isDigits(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                if (!Character.isDigit(text.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
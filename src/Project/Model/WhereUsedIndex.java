@@ -0,0 +1,119 @@
+package Project.Model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WhereUsedIndex maps each part to the products that list it as an associated part,
+ * so finding the products that use a part costs the number of uses rather than a scan
+ * of every product's associated parts.
+ * A product that lists the same part more than once is counted once per listing.
+ * @author Diar Shabani
+ */
+public class WhereUsedIndex {
+    private final Map<Part, Map<Product, Integer>> uses = new HashMap<>();
+
+    /**
+     * Records that a product lists a part
+     * @param part The associated part
+     * @param product The product using it
+     */
+    public void link(Part part, Product product) {
+        uses.computeIfAbsent(part, k -> new LinkedHashMap<>()).merge(product, 1, Integer::sum);
+    }
+
+    /**
+     * Records that a product stopped listing a part once
+     * @param part The part that was removed
+     * @param product The product it was removed from
+     */
+    public void unlink(Part part, Product product) {
+        Map<Product, Integer> products = uses.get(part);
+        if (products == null) {
+            return;
+        }
+        products.computeIfPresent(product, (k, count) -> count > 1 ? count - 1 : null);
+        if (products.isEmpty()) {
+            uses.remove(part);
+        }
+    }
+
+    /**
+     * Records every associated part of a product
+     * @param product The product whose parts to link
+     */
+    public void linkAll(Product product) {
+        for (Part part : product.getAllAssociatedParts()) {
+            link(part, product);
+        }
+    }
+
+    /**
+     * Forgets every associated part of a product
+     * @param product The product whose parts to unlink
+     */
+    public void unlinkAll(Product product) {
+        for (Part part : product.getAllAssociatedParts()) {
+            unlink(part, product);
+        }
+    }
+
+    /**
+     * Forgets a part entirely
+     * @param part The part to forget
+     * @return The products that were using it
+     */
+    public List<Product> remove(Part part) {
+        Map<Product, Integer> products = uses.remove(part);
+        return products == null ? Collections.emptyList() : new ArrayList<>(products.keySet());
+    }
+
+    /**
+     * Moves every use of a part over to the part replacing it
+     * @param part The part being replaced
+     * @param replacement The part taking its place
+     * @return The products that were using the replaced part
+     */
+    public List<Product> replace(Part part, Part replacement) {
+        Map<Product, Integer> products = uses.remove(part);
+        if (products == null) {
+            return Collections.emptyList();
+        }
+        Map<Product, Integer> merged = uses.computeIfAbsent(replacement, k -> new LinkedHashMap<>());
+        products.forEach((product, count) -> merged.merge(product, count, Integer::sum));
+        return new ArrayList<>(products.keySet());
+    }
+
+    /**
+     * Returns the products that use a part
+     * @param part The part to look up
+     * @return The products listing the part, in the order they started using it
+     */
+    public List<Product> productsUsing(Part part) {
+        Map<Product, Integer> products = uses.get(part);
+        return products == null ? Collections.emptyList() : new ArrayList<>(products.keySet());
+    }
+
+    /**
+     * Returns how many times each product lists a part
+     * @param part The part to look up
+     * @return An unmodifiable view from each product listing the part to its number of listings
+     */
+    public Map<Product, Integer> listingsOf(Part part) {
+        Map<Product, Integer> products = uses.get(part);
+        return products == null ? Collections.emptyMap() : Collections.unmodifiableMap(products);
+    }
+
+    /**
+     * Checks whether any product uses a part
+     * @param part The part to look up
+     * @return True if at least one product lists the part
+     */
+    public boolean isUsed(Part part) {
+        return uses.containsKey(part);
+    }
+}
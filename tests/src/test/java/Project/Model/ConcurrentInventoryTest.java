@@ -0,0 +1,136 @@
+package Project.Model;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link ConcurrentInventory}. Drains are queued rather than run, and the test thread
+ * plays the apply thread by running them.
+ * @author Diar Shabani
+ */
+class ConcurrentInventoryTest {
+
+    private final Queue<Runnable> drains = new ArrayDeque<>();
+    private final Inventory view = new Inventory();
+    private final Part bolt = new InHouse(1, "Bolt", 0.5, 10, 0, 100, 7);
+    private final ConcurrentInventory store;
+
+    ConcurrentInventoryTest() {
+        view.addPart(bolt);
+        store = new ConcurrentInventory(view, drains::add);
+    }
+
+    private void drain() {
+        while (!drains.isEmpty()) {
+            drains.poll().run();
+        }
+    }
+
+    @Test
+    void writesBetweenDrainsReachTheTablesAsOneChange() {
+        AtomicInteger changes = new AtomicInteger();
+        view.getAllParts().addListener((ListChangeListener<Part>) c -> changes.incrementAndGet());
+
+        store.putPart(new InHouse(2, "Nut", 0.2, 10, 0, 100, 7));
+        store.putPart(new InHouse(3, "Washer", 0.1, 10, 0, 100, 7));
+        store.putPart(new InHouse(1, "Hex Bolt", 0.5, 10, 0, 100, 7));
+        store.deletePart(2);
+        assertEquals(1, drains.size());
+        drain();
+
+        assertEquals(1, changes.get());
+        assertEquals(2, view.getAllParts().size());
+        assertEquals("Hex Bolt", view.lookupPart(1).getName());
+        assertNull(view.lookupPart(2));
+        assertSame(store.lookupPart(3), view.lookupPart(3));
+    }
+
+    @Test
+    void formEditIsRefusedOnceAnotherThreadReplacedThePart() {
+        Part scanned = new InHouse(1, "Bolt", 0.5, 4, 0, 100, 7);
+        store.putPart(scanned);
+
+        assertNull(view.editPart(1, part -> part.setName("Carriage Bolt")));
+        assertEquals("Bolt", bolt.getName());
+        assertSame(scanned, store.lookupPart(1));
+        drain();
+        assertSame(scanned, view.lookupPart(1));
+        assertFalse(view.replacePart(bolt, new InHouse(1, "Carriage Bolt", 0.5, 10, 0, 100, 7)));
+    }
+
+    @Test
+    void formEditsGoThroughTheStore() {
+        Part edited = view.editPart(1, part -> {
+            part.setName("Carriage Bolt");
+            part.setId(5);
+        });
+
+        assertSame(bolt, edited);
+        assertSame(bolt, store.lookupPart(5));
+        assertNull(store.lookupPart(1));
+        assertEquals(0, drains.size());
+
+        Part replacement = new Outsourced(5, "Carriage Bolt", 0.6, 10, 0, 100, "Acme");
+        assertTrue(view.replacePart(bolt, replacement));
+        assertSame(replacement, store.lookupPart(5));
+    }
+
+    @Test
+    void formAddNeedsAFreeId() {
+        store.putPartIfAbsent(new InHouse(2, "Nut", 0.2, 10, 0, 100, 7));
+
+        assertThrows(IllegalStateException.class, () -> view.addPart(new InHouse(2, "Washer", 0.1, 10, 0, 100, 7)));
+        assertThrows(IllegalStateException.class, () -> view.addParts(List.of(
+                new InHouse(3, "Washer", 0.1, 10, 0, 100, 7),
+                new InHouse(2, "Washer", 0.1, 10, 0, 100, 7))));
+        assertNull(store.lookupPart(3));
+        drain();
+        assertEquals("Nut", view.lookupPart(2).getName());
+        assertEquals(2, view.getAllParts().size());
+    }
+
+    @Test
+    void formDeleteOfAReplacedPartIsRefused() {
+        Part scanned = new InHouse(1, "Bolt", 0.5, 4, 0, 100, 7);
+        store.putPart(scanned);
+
+        assertFalse(view.deletePart(bolt));
+        assertSame(scanned, store.lookupPart(1));
+        drain();
+        assertSame(scanned, view.lookupPart(1));
+    }
+
+    @Test
+    void concurrentUpdatesAreNotLost() throws InterruptedException {
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    store.updatePart(1, part -> new InHouse(1, part.getName(), part.getPrice(), part.getStock() + 1, 0, 10_000, 7));
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        drain();
+
+        assertEquals(4_010, store.lookupPart(1).getStock());
+        assertEquals(4_010, view.lookupPart(1).getStock());
+    }
+}
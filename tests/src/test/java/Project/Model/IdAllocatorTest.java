@@ -0,0 +1,71 @@
+package Project.Model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link IdAllocator}
+ * @author Diar Shabani
+ */
+class IdAllocatorTest {
+
+    @Test
+    void peekReturnsLowestFreeId() {
+        IdAllocator ids = new IdAllocator();
+        assertEquals(1, ids.peek());
+        ids.reserve(1);
+        ids.reserve(2);
+        ids.reserve(4);
+        assertEquals(3, ids.peek());
+        ids.reserve(3);
+        assertEquals(5, ids.peek());
+    }
+
+    @Test
+    void releasedIdIsReused() {
+        IdAllocator ids = new IdAllocator();
+        for (int id = 1; id <= 100; id++) {
+            ids.reserve(id);
+        }
+        assertEquals(101, ids.peek());
+        ids.release(40);
+        assertEquals(40, ids.peek());
+        ids.release(7);
+        assertEquals(7, ids.peek());
+        ids.reserve(7);
+        assertEquals(40, ids.peek());
+    }
+
+    @Test
+    void nonPositiveIdsAreIgnored() {
+        IdAllocator ids = new IdAllocator();
+        ids.reserve(0);
+        ids.reserve(-5);
+        assertEquals(1, ids.peek());
+    }
+
+    @Test
+    void hugeIdsDoNotAffectDenseRange() {
+        IdAllocator ids = new IdAllocator();
+        ids.reserve(Integer.MAX_VALUE);
+        ids.reserve(1);
+        assertEquals(2, ids.peek());
+        ids.release(Integer.MAX_VALUE);
+        assertEquals(2, ids.peek());
+    }
+
+    @Test
+    void outliersAreSkippedOnceDenseRangeIsFull() {
+        IdAllocator ids = new IdAllocator();
+        for (int id = 1; id < IdAllocator.DENSE_LIMIT; id++) {
+            ids.reserve(id);
+        }
+        assertEquals(IdAllocator.DENSE_LIMIT, ids.peek());
+        ids.reserve(IdAllocator.DENSE_LIMIT);
+        ids.reserve(IdAllocator.DENSE_LIMIT + 1);
+        assertEquals(IdAllocator.DENSE_LIMIT + 2, ids.peek());
+        ids.release(IdAllocator.DENSE_LIMIT);
+        assertEquals(IdAllocator.DENSE_LIMIT, ids.peek());
+    }
+}
@@ -0,0 +1,106 @@
+package Project.Model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests for {@link InventoryLog}
+ * @author Diar Shabani
+ */
+class InventoryLogTest {
+
+    @TempDir
+    Path dir;
+
+    private Path writeSampleLog() throws IOException {
+        Path file = dir.resolve("inventory.log");
+        Inventory inventory = new Inventory();
+        try (InventoryLog log = InventoryLog.open(file)) {
+            log.replay(inventory);
+            inventory.setLog(log);
+            Part bolt = new InHouse(1, "Bolt", 0.5, 10, 0, 100, 7);
+            Part nut = new Outsourced(2, "Nut", 0.2, 20, 0, 100, "Acme");
+            inventory.addPart(bolt);
+            inventory.addPart(nut);
+            Product bike = new Product(1, "Bike", 99.0, 3, 0, 10);
+            inventory.addProduct(bike);
+            bike.addAssociatedPart(bolt);
+            bike.addAssociatedPart(nut);
+            bolt.setStock(bolt.getStock() - 4);
+            inventory.deletePart(nut);
+        }
+        return file;
+    }
+
+    private static Inventory replay(Path file) throws IOException {
+        Inventory inventory = new Inventory();
+        try (InventoryLog log = InventoryLog.open(file)) {
+            log.replay(inventory);
+        }
+        return inventory;
+    }
+
+    @Test
+    void replayRebuildsTheInventory() throws IOException {
+        Inventory inventory = replay(writeSampleLog());
+
+        assertEquals(1, inventory.getAllParts().size());
+        Part bolt = inventory.lookupPart(1);
+        assertEquals(6, bolt.getStock());
+        assertNull(inventory.lookupPart(2));
+        Product bike = inventory.lookupProduct(1);
+        assertEquals(1, bike.getAllAssociatedParts().size());
+        assertEquals(bolt, bike.getAllAssociatedParts().get(0));
+    }
+
+    @Test
+    void replayTruncatesATornTail() throws IOException {
+        Path file = writeSampleLog();
+        long complete = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 9, 9}));
+        }
+
+        Inventory inventory = replay(file);
+        assertEquals(complete, Files.size(file));
+        assertEquals(6, inventory.lookupPart(1).getStock());
+    }
+
+    @Test
+    void replayStopsAtACorruptLength() throws IOException {
+        Path file = writeSampleLog();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 0);
+        }
+
+        Inventory inventory = replay(file);
+        assertEquals(0, Files.size(file));
+        assertEquals(0, inventory.getAllParts().size());
+    }
+
+    @Test
+    void namesLongerThan64KbAreLogged() throws IOException {
+        Path file = dir.resolve("long.log");
+        String name = "x".repeat(100_000);
+        Inventory inventory = new Inventory();
+        try (InventoryLog log = InventoryLog.open(file)) {
+            log.replay(inventory);
+            inventory.setLog(log);
+            inventory.addPart(new Outsourced(1, name, 1.0, 1, 0, 10, "é" + name));
+        }
+
+        Outsourced part = (Outsourced) replay(file).lookupPart(1);
+        assertEquals(name, part.getName());
+        assertEquals("é" + name, part.getCompanyName());
+    }
+}
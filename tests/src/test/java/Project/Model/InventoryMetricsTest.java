@@ -0,0 +1,42 @@
+package Project.Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link InventoryMetrics} as recorded by {@link Inventory}
+ * @author Diar Shabani
+ */
+class InventoryMetricsTest {
+
+    @Test
+    void bulkOperationsAreTimedOncePerCall() {
+        Inventory inventory = new Inventory();
+        InventoryMetrics metrics = inventory.enableMetrics("InventoryMetricsTest");
+        Part bolt = new InHouse(1, "Bolt", 0.5, 10, 0, 100, 7);
+        Part nut = new InHouse(2, "Nut", 0.2, 10, 0, 100, 7);
+        Product bike = new Product(1, "Bike", 99.0, 3, 0, 10);
+
+        inventory.batch(() -> {
+            inventory.addParts(List.of(bolt, nut));
+            inventory.addProducts(List.of(bike));
+        });
+        inventory.updateParts(List.of(new InHouse(1, "Hex Bolt", 0.5, 10, 0, 100, 7)));
+        inventory.updateProducts(List.of(new Product(1, "Bike", 89.0, 3, 0, 10)));
+        inventory.deleteParts(List.of(nut));
+        inventory.deleteProducts(List.copyOf(inventory.getAllProducts()));
+
+        assertEquals(1, metrics.get(InventoryMetrics.Operation.BATCH).getCount());
+        assertEquals(1, metrics.get(InventoryMetrics.Operation.ADD_PARTS).getCount());
+        assertEquals(1, metrics.get(InventoryMetrics.Operation.ADD_PRODUCTS).getCount());
+        assertEquals(1, metrics.get(InventoryMetrics.Operation.UPDATE_PARTS).getCount());
+        assertEquals(1, metrics.get(InventoryMetrics.Operation.UPDATE_PART).getCount());
+        assertEquals(1, metrics.get(InventoryMetrics.Operation.UPDATE_PRODUCTS).getCount());
+        assertEquals(1, metrics.get(InventoryMetrics.Operation.DELETE_PARTS).getCount());
+        assertEquals(1, metrics.get(InventoryMetrics.Operation.DELETE_PRODUCTS).getCount());
+        assertEquals(0, metrics.get(InventoryMetrics.Operation.ADD_PART).getCount());
+    }
+}
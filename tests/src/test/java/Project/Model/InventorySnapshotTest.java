@@ -0,0 +1,103 @@
+package Project.Model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests for {@link InventorySnapshot}
+ * @author Diar Shabani
+ */
+class InventorySnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private static Inventory sample() {
+        Inventory inventory = new Inventory();
+        inventory.addPart(new InHouse(7, "Bolt", 0.5, 10, 1, 100, 42));
+        inventory.addPart(new Outsourced(3, "Nut", 0.25, 20, 2, 200, "Acme"));
+        inventory.addPart(new InHouse(5, "Ünïcode Washer", 0.1, 30, 3, 300, 43));
+        Product bike = new Product(1, "Bike", 99.0, 4, 1, 10);
+        bike.addAssociatedPart(inventory.lookupPart(3));
+        bike.addAssociatedPart(inventory.lookupPart(7));
+        inventory.addProduct(bike);
+        inventory.addProduct(new Product(2, "Frame", 49.0, 2, 0, 5));
+        return inventory;
+    }
+
+    @Test
+    void restoreRoundTripsEveryRow() throws IOException {
+        Path file = dir.resolve("inventory.snapshot");
+        InventorySnapshot.write(sample(), file, 99);
+
+        InventorySnapshot snapshot = InventorySnapshot.open(file);
+        assertEquals(99, snapshot.getCheckpoint());
+        Inventory restored = new Inventory();
+        snapshot.restore(restored);
+
+        assertEquals(3, restored.getAllParts().size());
+        assertEquals(7, restored.getAllParts().get(0).getId());
+        Outsourced nut = (Outsourced) restored.lookupPart(3);
+        assertEquals("Acme", nut.getCompanyName());
+        assertEquals(0.25, nut.getPrice());
+        assertEquals(20, nut.getStock());
+        assertEquals(2, nut.getMin());
+        assertEquals(200, nut.getMax());
+        assertEquals(43, ((InHouse) restored.lookupPart(5)).getMachineId());
+        assertEquals("Ünïcode Washer", restored.lookupPart(5).getName());
+
+        Product bike = restored.lookupProduct(1);
+        assertEquals(2, bike.getAllAssociatedParts().size());
+        assertEquals(restored.lookupPart(3), bike.getAllAssociatedParts().get(0));
+        assertEquals(0, restored.lookupProduct(2).getAllAssociatedParts().size());
+    }
+
+    @Test
+    void rowsAreReadWithoutRestoring() throws IOException {
+        Path file = dir.resolve("inventory.snapshot");
+        InventorySnapshot.write(sample(), file, 1);
+
+        InventorySnapshot snapshot = InventorySnapshot.open(file);
+        assertEquals(3, snapshot.getPartCount());
+        assertEquals("Nut", snapshot.lookupPart(3).getName());
+        assertEquals("Bolt", snapshot.lookupPart(7).getName());
+        assertNull(snapshot.lookupPart(4));
+        assertEquals("Frame", snapshot.getProduct(1).getName());
+        assertArrayEquals(new int[] {3, 7}, snapshot.getAssociatedPartIds(0));
+    }
+
+    @Test
+    void logWrittenBeforeTheSnapshotIsDiscarded() throws IOException {
+        Path snapshotFile = dir.resolve("inventory.snapshot");
+        Path logFile = dir.resolve("inventory.log");
+        Inventory inventory = sample();
+        try (InventoryLog log = InventoryLog.open(logFile)) {
+            inventory.setLog(log);
+            inventory.lookupPart(7).setStock(9);
+            InventorySnapshot.write(inventory, snapshotFile, 5);
+            log.checkpoint(5);
+            inventory.lookupPart(7).setStock(8);
+        }
+
+        Inventory restored = new Inventory();
+        InventorySnapshot.open(snapshotFile).restore(restored);
+        try (InventoryLog log = InventoryLog.open(logFile)) {
+            assertEquals(2, log.replay(restored, 5));
+        }
+        assertEquals(8, restored.lookupPart(7).getStock());
+
+        Inventory stale = new Inventory();
+        InventorySnapshot.open(snapshotFile).restore(stale);
+        try (InventoryLog log = InventoryLog.open(logFile)) {
+            assertEquals(0, log.replay(stale, 6));
+        }
+        assertEquals(9, stale.lookupPart(7).getStock());
+    }
+}
@@ -0,0 +1,148 @@
+package Project.Model;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link LiveSearchView}. Searches are run on the test thread between prepare and
+ * apply, which is the order the background thread and the JavaFX Application Thread see them in.
+ * @author Diar Shabani
+ */
+class LiveSearchViewTest {
+
+    private final Inventory inventory = new Inventory();
+    private final Part gearA = new InHouse(1, "Gear A", 1.0, 10, 0, 100, 7);
+    private final Part chain = new InHouse(2, "Chain", 1.0, 10, 0, 100, 7);
+    private final Part gearB = new InHouse(3, "Gear B", 1.0, 10, 0, 100, 7);
+    private final Part bigGear = new InHouse(4, "Big Gear", 1.0, 10, 0, 100, 7);
+
+    LiveSearchViewTest() {
+        inventory.addPart(gearA);
+        inventory.addPart(chain);
+        inventory.addPart(gearB);
+        inventory.addPart(bigGear);
+    }
+
+    private static <T> void search(LiveSearchView<T> view, String text) {
+        LiveSearchView<T>.Search search = view.prepare(text);
+        search.run();
+        view.apply(search);
+    }
+
+    @Test
+    void showsMatchesInInventoryOrder() {
+        LiveSearchView<Part> view = inventory.createPartView();
+        search(view, "gear");
+        assertEquals(List.of(gearA, gearB, bigGear), view.getItems());
+
+        search(view, "");
+        assertEquals(List.of(gearA, chain, gearB, bigGear), view.getItems());
+    }
+
+    @Test
+    void refiningOnlyRemovesItems() {
+        LiveSearchView<Part> view = inventory.createPartView();
+        search(view, "gear");
+        List<Part> before = List.copyOf(view.getItems());
+
+        AtomicBoolean added = new AtomicBoolean();
+        view.getItems().addListener((ListChangeListener<Part>) c -> {
+            while (c.next()) {
+                added.compareAndSet(false, c.wasAdded());
+            }
+        });
+        search(view, "gear ");
+
+        assertEquals(List.of(gearA, gearB), view.getItems());
+        assertTrue(before.containsAll(view.getItems()));
+        assertFalse(added.get());
+    }
+
+    @Test
+    void changesWhileSearchRunsAreReconciled() {
+        LiveSearchView<Part> view = inventory.createPartView();
+        LiveSearchView<Part>.Search search = view.prepare("gear");
+        search.run();
+
+        Part gearC = new InHouse(5, "Gear C", 1.0, 10, 0, 100, 7);
+        inventory.addPart(gearC);
+        inventory.deletePart(gearB);
+        inventory.editPart(chain.getId(), part -> part.setName("Chain Gear"));
+        inventory.editPart(gearA.getId(), part -> part.setName("Sprocket"));
+        view.apply(search);
+
+        assertEquals(List.of(chain, bigGear, gearC), view.getItems());
+    }
+
+    @Test
+    void changesWhileRefineRunsAreReconciled() {
+        LiveSearchView<Part> view = inventory.createPartView();
+        search(view, "gear");
+        LiveSearchView<Part>.Search search = view.prepare("gear ");
+        search.run();
+
+        inventory.editPart(gearA.getId(), part -> part.setName("Bevel Gear"));
+        inventory.addPart(new InHouse(5, "Spur Gear", 1.0, 10, 0, 100, 7));
+        Part gearD = new InHouse(6, "Gear D", 1.0, 10, 0, 100, 7);
+        inventory.addPart(gearD);
+        view.apply(search);
+
+        assertEquals(List.of(gearB, gearD), view.getItems());
+    }
+
+    @Test
+    void replacedSearchIsIgnored() {
+        LiveSearchView<Part> view = inventory.createPartView();
+        LiveSearchView<Part>.Search stale = view.prepare("chain");
+        LiveSearchView<Part>.Search latest = view.prepare("big");
+        stale.run();
+        latest.run();
+
+        view.apply(stale);
+        assertEquals(4, view.getItems().size());
+        view.apply(latest);
+        assertEquals(List.of(bigGear), view.getItems());
+    }
+
+    @Test
+    void exactResultIsNotRefined() {
+        LiveSearchView<Part> view = inventory.createPartView();
+        LiveSearchView<Part>.Search byId = view.prepare("3", List.of(gearB));
+        byId.run();
+        view.apply(byId);
+        assertEquals(List.of(gearB), view.getItems());
+
+        inventory.addPart(new InHouse(13, "Crank", 1.0, 10, 0, 100, 7));
+        search(view, "3");
+        assertEquals(2, view.getItems().size());
+    }
+
+    @Test
+    void indexCanBeSearchedWhileItChanges() throws InterruptedException {
+        TrigramIndex<Part> index = new TrigramIndex<>(Part::getName, Part::getId);
+        Part stable = new InHouse(1, "Stable Gear", 1.0, 10, 0, 100, 7);
+        index.add(stable);
+        Thread writer = new Thread(() -> {
+            for (int i = 2; i < 20_000; i++) {
+                Part part = new InHouse(i, "Gear " + i, 1.0, 10, 0, 100, 7);
+                index.add(part);
+                if (i % 2 == 0) {
+                    index.remove(part);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            assertTrue(index.search("gear").contains(stable));
+        }
+        writer.join();
+        assertEquals(10_000, index.size());
+    }
+}
@@ -0,0 +1,50 @@
+package Project.Model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link PartColumnCache} as maintained by {@link Inventory}
+ * @author Diar Shabani
+ */
+class PartColumnCacheTest {
+
+    @Test
+    void removingMovesTheLastRowIntoPlace() {
+        Inventory inventory = new Inventory();
+        Part first = new InHouse(1, "Bolt", 2.0, 10, 0, 100, 7);
+        Part second = new Outsourced(2, "Nut", 1.0, 5, 0, 100, "Acme");
+        Part third = new InHouse(3, "Washer", 0.5, 8, 0, 100, 7);
+        inventory.addPart(first);
+        inventory.addPart(second);
+        inventory.addPart(third);
+        PartColumnCache cache = inventory.enablePartColumnCache();
+
+        inventory.deletePart(first);
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getId(0));
+        assertEquals(13, cache.totalStock());
+
+        inventory.deletePart(third);
+        assertEquals(1, cache.size());
+        assertEquals("Nut", cache.partAt(0).getName());
+        assertEquals("Acme", ((Outsourced) cache.partAt(0)).getCompanyName());
+    }
+
+    @Test
+    void stockAndPriceChangesReachTheCache() {
+        Inventory inventory = new Inventory();
+        Part part = new InHouse(1, "Bolt", 2.0, 10, 0, 100, 7);
+        inventory.addPart(part);
+        PartColumnCache cache = inventory.enablePartColumnCache();
+
+        part.setStock(4);
+        part.setPrice(3.0);
+        assertEquals(4, cache.getStock(0));
+        assertEquals(12.0, cache.totalValue());
+
+        inventory.editPart(1, edited -> edited.setName("Hex Bolt"));
+        assertEquals("Hex Bolt", cache.partAt(0).getName());
+    }
+}
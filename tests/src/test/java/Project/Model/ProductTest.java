@@ -0,0 +1,55 @@
+package Project.Model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for the material cost {@link Product} keeps while it is in an {@link Inventory}
+ * @author Diar Shabani
+ */
+class ProductTest {
+
+    private static double summed(Product product) {
+        double cost = 0;
+        for (Part part : product.getAllAssociatedParts()) {
+            cost += part.getPrice();
+        }
+        return cost;
+    }
+
+    @Test
+    void materialCostFollowsListingsAndPrices() {
+        Inventory inventory = new Inventory();
+        Part bolt = new InHouse(1, "Bolt", 0.5, 10, 0, 100, 7);
+        Part nut = new InHouse(2, "Nut", 0.25, 10, 0, 100, 7);
+        inventory.addPart(bolt);
+        inventory.addPart(nut);
+        Product bike = new Product(1, "Bike", 99.0, 3, 0, 10);
+        bike.addAssociatedPart(bolt);
+        inventory.addProduct(bike);
+        assertEquals(0.5, bike.getMaterialCost(), 1e-9);
+
+        bike.addAssociatedPart(bolt);
+        bike.addAssociatedPart(nut);
+        assertEquals(1.25, bike.getMaterialCost(), 1e-9);
+
+        bolt.setPrice(2.0);
+        assertEquals(4.25, bike.getMaterialCost(), 1e-9);
+
+        inventory.editPart(2, part -> part.setPrice(1.0));
+        assertEquals(5.0, bike.getMaterialCost(), 1e-9);
+
+        bike.deleteAssociatedPart(bolt);
+        assertEquals(3.0, bike.getMaterialCost(), 1e-9);
+
+        Part washer = new Outsourced(2, "Washer", 0.75, 10, 0, 100, "Acme");
+        inventory.replacePart(nut, washer);
+        assertEquals(2.75, bike.getMaterialCost(), 1e-9);
+
+        inventory.deletePart(bolt);
+        assertEquals(0.75, bike.getMaterialCost(), 1e-9);
+        assertEquals(summed(bike), bike.getMaterialCost(), 1e-9);
+        assertEquals(99.0 - 0.75, bike.getMargin(), 1e-9);
+    }
+}
@@ -0,0 +1,103 @@
+package Project.Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link RangeIndex}. Items are counters whose value is both their price and their
+ * stock, with a min of 0 and a max of 100.
+ * @author Diar Shabani
+ */
+class RangeIndexTest {
+
+    private static RangeIndex<AtomicInteger> index() {
+        return new RangeIndex<>(field -> {
+            ToDoubleFunction<AtomicInteger> reader;
+            switch (field) {
+                case MIN:
+                    reader = item -> 0;
+                    break;
+                case MAX:
+                    reader = item -> 100;
+                    break;
+                default:
+                    reader = AtomicInteger::get;
+            }
+            return reader;
+        });
+    }
+
+    @Test
+    void rangesFollowRefreshes() {
+        RangeIndex<AtomicInteger> index = index();
+        AtomicInteger low = new AtomicInteger(3);
+        AtomicInteger high = new AtomicInteger(60);
+        index.add(low);
+        index.add(high);
+
+        assertEquals(List.of(low), index.range(RangeIndex.Field.PRICE, 0, true, 5, false));
+        high.set(1);
+        index.refresh(high);
+        assertEquals(List.of(high, low), index.range(RangeIndex.Field.STOCK, 0, true, 5, false));
+        assertEquals(List.of(), index.range(RangeIndex.Field.PRICE, 50, true, 100, true));
+
+        index.remove(low);
+        assertEquals(List.of(high), index.range(RangeIndex.Field.PRICE, 0, true, 100, true));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void concurrentRefreshesLeaveEveryItemIndexedOnce() throws InterruptedException {
+        RangeIndex<AtomicInteger> index = index();
+        AtomicInteger stable = new AtomicInteger(50);
+        index.add(stable);
+        int threads = 4;
+        int perThread = 250;
+        List<AtomicInteger> items = new ArrayList<>();
+        for (int i = 0; i < threads * perThread; i++) {
+            AtomicInteger item = new AtomicInteger(i % 101);
+            items.add(item);
+            index.add(item);
+        }
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<AtomicInteger> own = items.subList(t * perThread, (t + 1) * perThread);
+            SplittableRandom random = new SplittableRandom(t);
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    AtomicInteger item = own.get(random.nextInt(own.size()));
+                    item.set(random.nextInt(0, 101));
+                    index.refresh(item);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        while (writers.get(0).isAlive()) {
+            List<AtomicInteger> found = index.range(RangeIndex.Field.PRICE, 40, true, 60, true);
+            assertTrue(found.contains(stable));
+            assertEquals(found.size(), new HashSet<>(found).size());
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        List<AtomicInteger> all = index.range(RangeIndex.Field.STOCK, Double.NEGATIVE_INFINITY, true, Double.POSITIVE_INFINITY, true);
+        assertEquals(items.size() + 1, all.size());
+        for (AtomicInteger item : items) {
+            int value = item.get();
+            assertTrue(index.range(RangeIndex.Field.PRICE, value, true, value, true).contains(item));
+            assertTrue(index.range(RangeIndex.Field.STOCK, value, true, value, true).contains(item));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package Project.Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests for {@link StockWatchlist}. Items are counters with a min of 10 and a max of 90.
+ * @author Diar Shabani
+ */
+class StockWatchlistTest {
+
+    private static StockWatchlist<AtomicInteger> watchlist() {
+        return new StockWatchlist<>(AtomicInteger::get, item -> 10, item -> 90);
+    }
+
+    @Test
+    void crossingsAreReportedOnce() {
+        StockWatchlist<AtomicInteger> watchlist = watchlist();
+        AtomicInteger item = new AtomicInteger(50);
+        watchlist.add(item);
+        List<String> crossings = new ArrayList<>();
+        watchlist.addListener((changed, from, to) -> crossings.add(from + "->" + to));
+
+        item.set(40);
+        watchlist.refresh(item);
+        item.set(5);
+        watchlist.refresh(item);
+        item.set(95);
+        watchlist.refresh(item);
+
+        assertEquals(List.of("NORMAL->LOW", "LOW->FULL"), crossings);
+        assertEquals(List.of(), watchlist.getLowItems());
+        assertEquals(List.of(item), watchlist.getFullItems());
+    }
+
+    @Test
+    void listenerWithAnExecutorIsCalledThroughIt() {
+        StockWatchlist<AtomicInteger> watchlist = watchlist();
+        AtomicInteger item = new AtomicInteger(50);
+        watchlist.add(item);
+        Queue<Runnable> calls = new ArrayDeque<>();
+        List<StockWatchlist.Level> levels = new ArrayList<>();
+        watchlist.addListener((changed, from, to) -> levels.add(to), calls::add);
+
+        item.set(0);
+        watchlist.refresh(item);
+        assertEquals(List.of(), levels);
+        assertEquals(1, calls.size());
+
+        calls.poll().run();
+        assertEquals(List.of(StockWatchlist.Level.LOW), levels);
+    }
+
+    @Test
+    void concurrentRefreshesLeaveEveryItemPlacedOnce() throws InterruptedException {
+        StockWatchlist<AtomicInteger> watchlist = watchlist();
+        int threads = 4;
+        int perThread = 250;
+        List<AtomicInteger> items = new ArrayList<>();
+        for (int i = 0; i < threads * perThread; i++) {
+            AtomicInteger item = new AtomicInteger(50);
+            items.add(item);
+            watchlist.add(item);
+        }
+        Map<AtomicInteger, StockWatchlist.Level> lastSeen = new IdentityHashMap<>();
+        for (AtomicInteger item : items) {
+            lastSeen.put(item, StockWatchlist.Level.NORMAL);
+        }
+        AtomicInteger brokenChains = new AtomicInteger();
+        watchlist.addListener((item, from, to) -> {
+            synchronized (lastSeen) {
+                if (lastSeen.put(item, to) != from) {
+                    brokenChains.incrementAndGet();
+                }
+            }
+        });
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<AtomicInteger> own = items.subList(t * perThread, (t + 1) * perThread);
+            SplittableRandom random = new SplittableRandom(t);
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    AtomicInteger item = own.get(random.nextInt(own.size()));
+                    item.set(random.nextInt(0, 101));
+                    watchlist.refresh(item);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        while (writers.get(0).isAlive()) {
+            List<AtomicInteger> low = watchlist.getLowItems();
+            assertEquals(low.size(), new HashSet<>(low).size());
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(0, brokenChains.get());
+        assertEquals(items.size(), watchlist.getItemsWithin(Integer.MAX_VALUE).size());
+        List<AtomicInteger> low = watchlist.getLowItems();
+        List<AtomicInteger> full = watchlist.getFullItems();
+        for (AtomicInteger item : items) {
+            StockWatchlist.Level level = item.get() <= 10 ? StockWatchlist.Level.LOW
+                    : item.get() >= 90 ? StockWatchlist.Level.FULL : StockWatchlist.Level.NORMAL;
+            assertSame(level, watchlist.getLevel(item));
+            assertSame(level, lastSeen.get(item));
+            assertEquals(level == StockWatchlist.Level.LOW, low.contains(item));
+            assertEquals(level == StockWatchlist.Level.FULL, full.contains(item));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package Project.Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link TrigramIndex} and the searches {@link Inventory} makes with it
+ * @author Diar Shabani
+ */
+class TrigramIndexTest {
+
+    private static TrigramIndex<Part> index(Part... parts) {
+        TrigramIndex<Part> index = new TrigramIndex<>(Part::getName, Part::getId);
+        for (Part part : parts) {
+            index.add(part);
+        }
+        return index;
+    }
+
+    @Test
+    void findsSubstringsIgnoringCase() {
+        Part bolt = new InHouse(1, "Hex Bolt", 0.5, 10, 0, 100, 7);
+        Part nut = new InHouse(2, "Hex Nut", 0.2, 10, 0, 100, 7);
+        Part wheel = new InHouse(3, "Wheel", 9.0, 10, 0, 100, 7);
+        TrigramIndex<Part> index = index(bolt, nut, wheel);
+
+        assertEquals(List.of(bolt), index.search("BOLT"));
+        assertEquals(2, index.search("hex ").size());
+        assertTrue(index.search("gear").isEmpty());
+    }
+
+    @Test
+    void findsDigitsInIds() {
+        Part first = new InHouse(120, "Spoke", 1.0, 10, 0, 100, 7);
+        Part second = new InHouse(31, "Rim", 1.0, 10, 0, 100, 7);
+        TrigramIndex<Part> index = index(first, second);
+
+        assertEquals(List.of(first), index.search("12"));
+        assertEquals(List.of(second), index.search("31"));
+    }
+
+    @Test
+    void shortQueriesScanEveryName() {
+        Part bolt = new InHouse(1, "Bolt", 0.5, 10, 0, 100, 7);
+        Part rim = new InHouse(2, "Rim", 1.0, 10, 0, 100, 7);
+        TrigramIndex<Part> index = index(bolt, rim);
+
+        assertEquals(List.of(bolt), index.search("ol"));
+        assertEquals(2, index.search("").size());
+    }
+
+    @Test
+    void removeUsesTheNameTheItemWasIndexedUnder() {
+        Part part = new InHouse(1, "Brake Pad", 3.0, 10, 0, 100, 7);
+        TrigramIndex<Part> index = index(part);
+
+        part.setName("Chain");
+        index.remove(part);
+        assertTrue(index.search("brake").isEmpty());
+        assertEquals(0, index.size());
+
+        index.add(part);
+        assertEquals(List.of(part), index.search("chain"));
+    }
+
+    @Test
+    void longerQueryRefinesShorterOne() {
+        TrigramIndex.Query hex = new TrigramIndex.Query("hex");
+        TrigramIndex.Query hexBolt = new TrigramIndex.Query("Hex Bolt");
+
+        assertTrue(hexBolt.refines(hex));
+        assertFalse(hex.refines(hexBolt));
+        assertFalse(new TrigramIndex.Query("nut").refines(hex));
+    }
+
+    @Test
+    void inventoryLookupKeepsInventoryOrder() {
+        Inventory inventory = new Inventory();
+        Part third = new InHouse(3, "Gear C", 1.0, 10, 0, 100, 7);
+        Part first = new InHouse(1, "Gear A", 1.0, 10, 0, 100, 7);
+        Part second = new InHouse(2, "Gear B", 1.0, 10, 0, 100, 7);
+        inventory.addPart(third);
+        inventory.addPart(first);
+        inventory.addPart(second);
+
+        inventory.deletePart(first);
+        inventory.addPart(first);
+
+        assertEquals(List.of(third, second, first), inventory.lookupPart("gear"));
+    }
+
+    @Test
+    void searchStopsAtTheLimit() {
+        Inventory inventory = new Inventory();
+        for (int i = 1; i <= 10; i++) {
+            inventory.addPart(new InHouse(i, "Gear " + i, 1.0, 10, 0, 100, 7));
+        }
+
+        assertEquals(3, inventory.searchParts("gear", 3).size());
+        assertEquals(2, inventory.searchParts("ge", 2).size());
+        assertEquals(0, inventory.searchParts("gear", 0).size());
+        assertEquals(10, inventory.searchParts("gear", 100).size());
+    }
+}